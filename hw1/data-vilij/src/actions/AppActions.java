@@ -1,6 +1,7 @@
 package actions;
 
 import components.YesNoDialog;
+import data.ColumnarDataSet;
 import dataprocessors.AppData;
 import javafx.application.Platform;
 import javafx.embed.swing.SwingFXUtils;
@@ -76,7 +77,7 @@ public final class AppActions implements ActionComponent {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle(manager.getPropertyValue(LOAD.name()));
         fileChooser.setInitialDirectory(new File(dataResourceURL.getFile()));
-        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter(manager.getPropertyValue(DATA_FILE_EXT_DESC.name()), manager.getPropertyValue(ASTERISK_CHARACTER.name()) + manager.getPropertyValue(DATA_FILE_EXT.name())));
+        addDataFileFilters(fileChooser);
         File loaded = fileChooser.showOpenDialog(applicationTemplate.getUIComponent().getPrimaryWindow());
         if(loaded != null){
             dataFilePath = loaded.toPath();
@@ -96,7 +97,7 @@ public final class AppActions implements ActionComponent {
             ynd.show(manager.getPropertyValue(ALGO_RUNNING.name()), manager.getPropertyValue(EXIT_WHILE_RUNNING_WARNING.name()));
             YesNoDialog.Option response = ((YesNoDialog)ynd).getSelectedOption();
             if(response.equals(YesNoDialog.Option.YES))
-                System.exit(0);
+                Platform.exit();
         }
         //if data is unsaved
         else if(!((AppUI)applicationTemplate.getUIComponent()).getSaveButton().isDisabled()){
@@ -108,13 +109,13 @@ public final class AppActions implements ActionComponent {
                 if(response.equals(ConfirmationDialog.Option.YES)){
                     try {
                         saveFile();
-                        System.exit(0);
+                        Platform.exit();
                     } catch (IOException e) {
                         applicationTemplate.getDialog(Dialog.DialogType.ERROR).show(manager.getPropertyValue(SAVE_ERROR_TITLE.name()), manager.getPropertyValue(DATA_FORMAT_ERROR_2.name())+"\n"+e.getMessage());
                     }
                 }
                 else
-                    System.exit(0);
+                    Platform.exit();
             }
         }
 
@@ -146,36 +147,26 @@ public final class AppActions implements ActionComponent {
     private void saveFile() throws IOException{
         String dataResourcePath = SEPARATOR+manager.getPropertyValue(DATA_RESOURCE_PATH.name());
         URL dataResourceURL = getClass().getResource(dataResourcePath);
-        try{
-            ((AppData)applicationTemplate.getDataComponent()).checkString(((AppUI) applicationTemplate.getUIComponent()).getTextArea().getText());
-        }
-        catch (IOException e){
-            throw new IOException(e.getMessage());
-        }
+        AppData appData = (AppData)applicationTemplate.getDataComponent();
+        ColumnarDataSet checked = appData.checkString(((AppUI) applicationTemplate.getUIComponent()).getTextArea().getText());
         if(dataFilePath == null) {
             FileChooser fileChooser = new FileChooser();
             fileChooser.setTitle(manager.getPropertyValue(SAVE_WORK_TITLE.name()));
             fileChooser.setInitialDirectory(new File(dataResourceURL.getFile()));
-            fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter(manager.getPropertyValue(DATA_FILE_EXT_DESC.name()), manager.getPropertyValue(ASTERISK_CHARACTER.name()) + manager.getPropertyValue(DATA_FILE_EXT.name())));
+            addDataFileFilters(fileChooser);
             File saved = fileChooser.showSaveDialog(applicationTemplate.getUIComponent().getPrimaryWindow());
             if (saved != null) {
                 dataFilePath = saved.toPath();
-                applicationTemplate.getDataComponent().saveData(dataFilePath);
-                ((AppUI)applicationTemplate.getUIComponent()).enableSaveButton(false);
+                appData.saveData(checked, dataFilePath);
             }
         }
     }
 
-    public void waitForUser() {
-        synchronized (applicationTemplate.manager){
-            while(((AppUI)applicationTemplate.getUIComponent()).isAlgorithmPaused()){
-                try {
-                    applicationTemplate.manager.wait();
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }
-        }
+    private void addDataFileFilters(FileChooser fileChooser){
+        String asterisk = manager.getPropertyValue(ASTERISK_CHARACTER.name());
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter(manager.getPropertyValue(DATA_FILE_EXT_DESC.name()), asterisk + manager.getPropertyValue(DATA_FILE_EXT.name())));
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter(manager.getPropertyValue(BINARY_FILE_EXT_DESC.name()), asterisk + manager.getPropertyValue(BINARY_FILE_EXT.name())));
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter(manager.getPropertyValue(COMPRESSED_FILE_EXT_DESC.name()), asterisk + manager.getPropertyValue(COMPRESSED_FILE_EXT.name())));
     }
 
     public Path getDataPath() {
@@ -14,4 +14,13 @@ public interface Algorithm extends Runnable {
 
     boolean tocontinue();
 
+    /**
+     * Asks the algorithm to stop. It stops cooperatively, at the latest after the iteration under way, and still ends
+     * its run as usual by closing its collector.
+     */
+    void stop();
+
+    /** @return whether the algorithm has been asked to stop */
+    boolean isStopped();
+
 }
\ No newline at end of file
@@ -19,8 +19,16 @@ public abstract class Classifier implements Algorithm {
      * into polynomial curves instead of just straight lines.
      * See 3.4.4 of the SRS.
      */
-    protected List<Integer> output;
+    protected List<Double> output;
 
-    public List<Integer> getOutput() { return output; }
+    private volatile boolean stopped;
+
+    public List<Double> getOutput() { return output; }
+
+    @Override
+    public void stop() { stopped = true; }
+
+    @Override
+    public boolean isStopped() { return stopped; }
 
 }
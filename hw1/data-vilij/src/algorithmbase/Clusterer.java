@@ -5,15 +5,63 @@ package algorithmbase;
  */
 public abstract class Clusterer implements Algorithm {
 
+    /** Why a clusterer stopped iterating. */
+    public enum StopReason {
+        /** The maximum number of iterations was run. */
+        MAX_ITERATIONS,
+        /** No centroid moved in the last iteration. */
+        CONVERGED,
+        /** The centroids moved less than the tolerance allows. */
+        CENTROID_SHIFT,
+        /** The inertia changed by a smaller fraction than the tolerance. */
+        INERTIA_CHANGE,
+        /** Every instance was placed in a cluster or found to be noise. */
+        COMPLETE,
+        /** The clusterer was asked to stop. */
+        CANCELLED
+    }
+
+    /** A clusterer that can run several times from different seeds and keep the best of its runs. */
+    public interface Restartable {
+
+        int getRestarts();
+
+        /** @param restarts the number of independent runs from different seeds, of which the best is kept */
+        void setRestarts(int restarts);
+    }
+
     protected final int numberOfClusters;
 
+    /** The relative change below which an iterative clusterer stops early, or 0 to run until nothing changes. */
+    protected volatile double tolerance;
+
+    protected volatile StopReason stopReason;
+
+    protected volatile int iterations;
+
+    private volatile boolean stopped;
+
     public int getNumberOfClusters() { return numberOfClusters; }
 
+    public double getTolerance() { return tolerance; }
+
+    public void setTolerance(double tolerance) { this.tolerance = tolerance; }
+
+    /** @return why the clusterer stopped, or <code>null</code> if it is still running or does not say */
+    public StopReason getStopReason() { return stopReason; }
+
+    /** @return the number of iterations run so far */
+    public int getIterations() { return iterations; }
+
+    @Override
+    public void stop() { stopped = true; }
+
+    @Override
+    public boolean isStopped() { return stopped; }
+
     public Clusterer(int k) {
         if (k < 2)
             k = 2;
-        else if (k > 4)
-            k = 4;
         numberOfClusters = k;
     }
 }
@@ -0,0 +1,264 @@
+package algorithms;
+
+import data.ColumnarDataSet;
+import data.KDTree;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Finds the clusters of DBSCAN over coordinates held in primitive arrays. A point with at least <code>minPoints</code>
+ * points, itself included, within <code>epsilon</code> of it is a core point; a cluster is every point reachable from
+ * a core point through a chain of core points, and points reachable from none are noise.
+ * <p>
+ * The neighbourhoods are found through a uniform grid whose cells are <code>epsilon</code> wide, so every neighbour of
+ * a point lies in its own cell or one of the eight around it. The occupied cells are found through an open-addressing
+ * table, and their points are listed in one array sorted by cell, so the grid takes linear space however sparse the
+ * data is.
+ */
+final class DBSCAN {
+
+    /** The label of a point that belongs to no cluster. */
+    static final int NOISE = -1;
+
+    /** The fewest points in the neighbourhood of a core point, itself included, that suits two dimensions. */
+    static final int MIN_POINTS = 4;
+
+    /** How many times the median distance to the <code>minPoints</code>-th nearest point the estimated epsilon is. */
+    private static final double EPSILON_SCALE = 3;
+
+    /** The number of points whose neighbour distances are sampled to estimate epsilon. */
+    private static final int EPSILON_SAMPLE = 1024;
+
+    /** A cell index beyond this would not fit in half of a cell key. */
+    private static final double MAX_CELLS = 1 << 30;
+
+    private static final int  UNVISITED = -2;
+    private static final long EMPTY     = Long.MIN_VALUE;
+
+    private final double[] xs;
+    private final double[] ys;
+    private final int      size;
+    private final double   epsilon;
+    private final int      minPoints;
+    private final double   minX;
+    private final double   minY;
+    private final long[]   cellKeys;   // open-addressing table of the occupied cells
+    private final int[]    cellIds;    // the id of the cell in the same slot of the table
+    private final int[]    cellStarts; // per cell id, where its points start in cellPoints
+    private final int[]    cellPoints; // the points ordered by cell
+    private final int[]    labels;
+    private final int[]    queue;
+    private int[]          neighbours = new int[16];
+    private int            clusters;
+    private int            next;       // every point before this one has been visited
+
+    /**
+     * @param xs        the x coordinates of the points, of which only the first <code>size</code> are used
+     * @param ys        the y coordinates of the points
+     * @param size      the number of points
+     * @param epsilon   the radius of a neighbourhood, raised if the grid would otherwise need too many cells
+     * @param minPoints the number of points in the neighbourhood of a core point, itself included
+     */
+    DBSCAN(double[] xs, double[] ys, int size, double epsilon, int minPoints) {
+        this.xs = xs;
+        this.ys = ys;
+        this.size = size;
+        this.minPoints = minPoints;
+        double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            minX = Math.min(minX, xs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        this.minX = minX;
+        this.minY = minY;
+        double extent = Math.max(maxX - minX, maxY - minY);
+        this.epsilon = Math.max(epsilon, extent / MAX_CELLS);
+
+        int capacity = Integer.highestOneBit(Math.max(2, 2 * size - 1)) << 1;
+        cellKeys = new long[capacity];
+        cellIds = new int[capacity];
+        Arrays.fill(cellKeys, EMPTY);
+        int[] cellOf = new int[size];
+        int   cells  = 0;
+        for (int i = 0; i < size; i++) {
+            long key  = key(cellX(xs[i]), cellY(ys[i]));
+            int  slot = slotOf(key);
+            if (cellKeys[slot] == EMPTY) {
+                cellKeys[slot] = key;
+                cellIds[slot] = cells++;
+            }
+            cellOf[i] = cellIds[slot];
+        }
+        cellStarts = new int[cells + 1];
+        for (int i = 0; i < size; i++)
+            cellStarts[cellOf[i] + 1]++;
+        for (int c = 0; c < cells; c++)
+            cellStarts[c + 1] += cellStarts[c];
+        cellPoints = new int[size];
+        int[] filled = Arrays.copyOf(cellStarts, cells);
+        for (int i = 0; i < size; i++)
+            cellPoints[filled[cellOf[i]]++] = i;
+
+        labels = new int[size];
+        Arrays.fill(labels, UNVISITED);
+        queue = new int[size];
+    }
+
+    DBSCAN(ColumnarDataSet columns, double epsilon, int minPoints) {
+        this(columns.getXs(), columns.getYs(), columns.size(), epsilon, minPoints);
+    }
+
+    /**
+     * Chooses the number of points in the neighbourhood of a core point for a dataset. Small clumps of points become
+     * more likely by chance as a dataset grows, so the number grows with the logarithm of its size.
+     *
+     * @param size the number of points
+     * @return at least {@link #MIN_POINTS}
+     */
+    static int minPoints(int size) {
+        return Math.max(MIN_POINTS, (int) Math.round(2 * Math.log(Math.max(1, size))));
+    }
+
+    /**
+     * Estimates epsilon from the distances of sampled points to their <code>minPoints</code>-th nearest point, counting
+     * the point itself. A few times the median of these distances reaches well past the typical neighbourhood, so that
+     * the sparser edges of a cluster stay connected, while noise, which lies much farther from other points, stays out.
+     *
+     * @param columns   the points
+     * @param tree      a spatial index over the points
+     * @param minPoints the number of points in the neighbourhood of a core point, itself included
+     * @param random    the source of the sample
+     * @return a positive epsilon, or 1 if there are too few distinct points to tell
+     */
+    static double estimateEpsilon(ColumnarDataSet columns, KDTree tree, int minPoints, Random random) {
+        int      samples   = Math.min(EPSILON_SAMPLE, columns.size());
+        double[] distances = new double[samples];
+        for (int s = 0; s < samples; s++) {
+            int   i       = samples == columns.size() ? s : random.nextInt(columns.size());
+            int[] nearest = tree.nearest(columns.getX(i), columns.getY(i), minPoints);
+            int   last    = nearest[nearest.length - 1];
+            distances[s] = Math.hypot(columns.getX(last) - columns.getX(i), columns.getY(last) - columns.getY(i));
+        }
+        Arrays.sort(distances);
+        for (int s = samples / 2; s < samples; s++) {
+            if (distances[s] > 0)
+                return EPSILON_SCALE * distances[s];
+        }
+        return 1;
+    }
+
+    double getEpsilon() { return epsilon; }
+
+    /** @return the number of clusters found so far */
+    int getClusterCount() { return clusters; }
+
+    /** @return the cluster of a point, or {@link #NOISE} if it is noise or has not been reached yet */
+    int getLabel(int index) { return labels[index] < 0 ? NOISE : labels[index]; }
+
+    /**
+     * Finds the next cluster: skips past points that are already labelled or turn out to be noise, and grows a
+     * cluster from the first core point reached.
+     *
+     * @return whether a cluster was found, or <code>false</code> once every point has been visited
+     */
+    boolean grow() {
+        for (; next < size; next++) {
+            if (labels[next] != UNVISITED)
+                continue;
+            int count = regionQuery(next);
+            if (count < minPoints) {
+                labels[next] = NOISE;
+                continue;
+            }
+            int cluster = clusters++;
+            int head    = 0;
+            int tail    = 0;
+            labels[next] = cluster;
+            queue[tail++] = next;
+            while (head < tail) {
+                int point = queue[head++];
+                count = regionQuery(point);
+                if (count < minPoints)
+                    continue;
+                for (int n = 0; n < count; n++) {
+                    int neighbour = neighbours[n];
+                    if (labels[neighbour] == NOISE) {
+                        labels[neighbour] = cluster;
+                    } else if (labels[neighbour] == UNVISITED) {
+                        labels[neighbour] = cluster;
+                        queue[tail++] = neighbour;
+                    }
+                }
+            }
+            next++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Labels every point of a dataset with its cluster, and noise and points not yet reached with the given label.
+     *
+     * @param columns    the dataset the points were taken from
+     * @param noiseLabel the label of noise
+     */
+    void publish(ColumnarDataSet columns, String noiseLabel) {
+        int[] labelCodes = new int[clusters];
+        for (int c = 0; c < clusters; c++)
+            labelCodes[c] = columns.labelCodeOf(Integer.toString(c));
+        int noiseCode = columns.labelCodeOf(noiseLabel);
+        for (int i = 0; i < size; i++)
+            columns.setLabelCode(i, labels[i] < 0 ? noiseCode : labelCodes[labels[i]]);
+    }
+
+    /** Lists the points within epsilon of a point, itself included, in {@link #neighbours}. */
+    private int regionQuery(int point) {
+        double x      = xs[point];
+        double y      = ys[point];
+        double radius = epsilon * epsilon;
+        long   cellX  = cellX(x);
+        long   cellY  = cellY(y);
+        int    count  = 0;
+        for (long cx = cellX - 1; cx <= cellX + 1; cx++) {
+            for (long cy = cellY - 1; cy <= cellY + 1; cy++) {
+                if (cx < 0 || cy < 0)
+                    continue;
+                long key  = key(cx, cy);
+                int  slot = slotOf(key);
+                if (cellKeys[slot] == EMPTY)
+                    continue;
+                int cell = cellIds[slot];
+                for (int p = cellStarts[cell]; p < cellStarts[cell + 1]; p++) {
+                    int    other = cellPoints[p];
+                    double dx    = xs[other] - x;
+                    double dy    = ys[other] - y;
+                    if (dx * dx + dy * dy <= radius) {
+                        if (count == neighbours.length)
+                            neighbours = Arrays.copyOf(neighbours, 2 * count);
+                        neighbours[count++] = other;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private long cellX(double x) { return (long) ((x - minX) / epsilon); }
+
+    private long cellY(double y) { return (long) ((y - minY) / epsilon); }
+
+    private static long key(long cellX, long cellY) { return cellX << 32 | cellY; }
+
+    /** @return the slot holding the cell with the given key, or the empty slot where it would go */
+    private int slotOf(long key) {
+        int mask = cellKeys.length - 1;
+        int slot = (int) (key * 0x9E3779B97F4A7C15L >>> 32) & mask;
+        while (cellKeys[slot] != EMPTY && cellKeys[slot] != key)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+}
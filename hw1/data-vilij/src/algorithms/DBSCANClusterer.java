@@ -0,0 +1,74 @@
+package algorithms;
+
+import algorithmbase.Clusterer;
+import data.ColumnarDataSet;
+import data.DataCollector;
+import data.DataSet;
+import data.LabelDelta;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Clusters by density with DBSCAN, which finds clusters of any shape and as many as the data holds. Points in no
+ * cluster are labelled <code>null</code>, like unlabelled instances. Both epsilon and the number of points around a
+ * core point are estimated from the data, so the number of labels in the run configuration is not used.
+ * An iteration finds one cluster, and every update follows as many of them as the update interval. Unless it is stopped,
+ * the run goes on until every cluster is found, since ending early would leave the rest of the points looking like
+ * noise.
+ */
+public class DBSCANClusterer extends Clusterer {
+
+    private static final String NOISE = "null";
+
+    private DataSet dataset;
+
+    private final int           maxIterations;
+    private final int           updateInterval;
+    private final AtomicBoolean tocontinue;
+
+    private DataCollector collector;
+
+    public DBSCANClusterer(DataCollector dataCollector, DataSet dataset, int maxIterations, int updateInterval, int numberOfClusters) {
+        super(numberOfClusters);
+        this.dataset = dataset;
+        this.maxIterations = maxIterations;
+        this.updateInterval = updateInterval;
+        this.tocontinue = new AtomicBoolean(false);
+        collector = dataCollector;
+    }
+
+    @Override
+    public int getMaxIterations() { return maxIterations; }
+
+    @Override
+    public int getUpdateInterval() { return updateInterval; }
+
+    @Override
+    public boolean tocontinue() { return tocontinue.get() && !isStopped(); }
+
+    @Override
+    public void run() {
+        ColumnarDataSet    columns = dataset.getColumns();
+        LabelDelta.Tracker tracker = new LabelDelta.Tracker(columns);
+        int                points  = DBSCAN.minPoints(columns.size());
+        double             epsilon = DBSCAN.estimateEpsilon(columns, dataset.getSpatialIndex(), points, new Random());
+        DBSCAN             engine  = new DBSCAN(columns, epsilon, points);
+        tocontinue.set(true);
+        stopReason = null;
+        iterations = 0;
+        while (tocontinue()) {
+            int batchEnd = iterations + Math.max(1, updateInterval);
+            while (iterations < batchEnd && tocontinue()) {
+                if (engine.grow())
+                    iterations++;
+                else
+                    tocontinue.set(false);
+            }
+            engine.publish(columns, NOISE);
+            collector.put(tracker.changes());
+        }
+        stopReason = isStopped() ? StopReason.CANCELLED : StopReason.COMPLETE;
+        collector.put(null);
+    }
+}
@@ -1,23 +1,24 @@
 package algorithms;
 
 import algorithmbase.Clusterer;
+import data.ColumnarDataSet;
 import data.DataCollector;
 import data.DataSet;
-import javafx.geometry.Point2D;
+import data.LabelDelta;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
  * @author Ritwik Banerjee
  */
-public class KMeansClusterer extends Clusterer {
+public class KMeansClusterer extends Clusterer implements Clusterer.Restartable {
 
     private DataSet dataset;
-    private List<Point2D> centroids;
 
     private final int           maxIterations;
     private final int           updateInterval;
@@ -25,6 +26,8 @@ public class KMeansClusterer extends Clusterer {
 
     private DataCollector collector;
 
+    /** The number of independent runs from different seeds, of which the best is kept. */
+    private volatile int restarts = 1;
 
     public KMeansClusterer(DataCollector dataCollector, DataSet dataset, int maxIterations, int updateInterval, int numberOfClusters) {
         super(numberOfClusters);
@@ -42,78 +45,153 @@ public class KMeansClusterer extends Clusterer {
     public int getUpdateInterval() { return updateInterval; }
 
     @Override
-    public boolean tocontinue() { return tocontinue.get(); }
+    public int getRestarts() { return restarts; }
 
     @Override
-    public void run() {
-        initializeCentroids();
-        int iteration = 0;
-        while (iteration < maxIterations & tocontinue.get()) {
-            iteration += updateInterval;
-            assignLabels();
-            recomputeCentroids();
-            collector.put(dataset);
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+    public void setRestarts(int restarts) { this.restarts = restarts; }
+
+    @Override
+    public boolean tocontinue() { return tocontinue.get() && !isStopped(); }
+
+    /** One run of k-means from its own seeds, in an engine that later runs take over once it has finished. */
+    @SuppressWarnings("serial") // tasks are never serialized
+    private final class Restart extends RecursiveAction {
+        private final KMeansEngine engine;
+        private double             previousInertia;
+        private StopReason         reason;
+        private int                iterations;
+        private int                batchEnd;
+
+        Restart(ColumnarDataSet columns) {
+            this.engine = new KMeansEngine(columns, numberOfClusters);
+        }
+
+        /** Starts the run over from new seeds. */
+        void seed(Random random) {
+            engine.seed(random);
+            previousInertia = Double.NaN;
+            reason = null;
+            iterations = 0;
+        }
+
+        /** Iterates until the run stops or has run {@link #batchEnd} iterations. */
+        @Override
+        protected void compute() {
+            while (reason == null && iterations < batchEnd && tocontinue()) {
+                boolean moved = engine.iterate();
+                iterations++;
+                reason = stopReason(moved, engine.getMaxShift(), engine.getInertia(), previousInertia, engine.size(), tolerance);
+                previousInertia = engine.getInertia();
             }
         }
-        collector.put(null);
-    }
 
-    private void initializeCentroids() {
-        Set<String>  chosen        = new HashSet<>();
-        List<String> instanceNames = new ArrayList<>(dataset.getLabels().keySet());
-        Random       r             = new Random();
-        while (chosen.size() < numberOfClusters) {
-            int i = r.nextInt(instanceNames.size());
-            while (chosen.contains(instanceNames.get(i)))
-                i = (++i % instanceNames.size());
-            chosen.add(instanceNames.get(i));
+        boolean isFinished() {
+            return reason != null || iterations >= maxIterations;
+        }
+
+        boolean isBetterThan(Restart other) {
+            return other == null || engine.getInertia() < other.engine.getInertia();
         }
-        centroids = chosen.stream().map(name -> dataset.getLocations().get(name)).collect(Collectors.toList());
-        tocontinue.set(true);
     }
 
-    private void assignLabels() {
-        dataset.getLocations().forEach((instanceName, location) -> {
-            double minDistance      = Double.MAX_VALUE;
-            int    minDistanceIndex = -1;
-            for (int i = 0; i < centroids.size(); i++) {
-                double distance = computeDistance(centroids.get(i), location);
-                if (distance < minDistance) {
-                    minDistance = distance;
-                    minDistanceIndex = i;
+    /**
+     * Runs as many restarts side by side on a {@link ForkJoinPool} as it has threads, an update interval at a time, and
+     * starts the next restart as soon as one finishes. After every interval the restart with the lowest inertia so far,
+     * running or finished, labels the dataset, so only the best candidate is ever shown, and the labels that changed
+     * since the previous interval are published. A finished restart hands its engine over to a later one unless it is
+     * the best so far, so the per-point state of one restart more than run at once is held however many there are.
+     */
+    @Override
+    public void run() {
+        ColumnarDataSet    columns = dataset.getColumns();
+        LabelDelta.Tracker tracker = new LabelDelta.Tracker(columns);
+        Random             random  = new Random();
+        ForkJoinPool       pool    = ForkJoinPool.commonPool();
+        int                total   = Math.max(1, restarts);
+        Restart[]          running = new Restart[Math.min(total, Math.max(1, pool.getParallelism()))];
+        List<Restart>      spare   = new ArrayList<>();
+        int                started = 0;
+        Restart            best    = null;
+        Restart            shown   = null;
+        tocontinue.set(true);
+        stopReason = null;
+        iterations = 0;
+        while (tocontinue()) {
+            List<Restart> batch = new ArrayList<>();
+            for (int slot = 0; slot < running.length; slot++) {
+                if (running[slot] == null && started < total) {
+                    running[slot] = spare.isEmpty() ? new Restart(columns) : spare.remove(spare.size() - 1);
+                    running[slot].seed(new Random(random.nextLong()));
+                    started++;
+                }
+                if (running[slot] != null) {
+                    Restart start = running[slot];
+                    start.reinitialize();
+                    start.batchEnd = Math.min(maxIterations, start.iterations + Math.max(1, updateInterval));
+                    batch.add(start);
                 }
             }
-            dataset.getLabels().put(instanceName, Integer.toString(minDistanceIndex));
-        });
-    }
-
-    private void recomputeCentroids() {
-        tocontinue.set(false);
-        IntStream.range(0, numberOfClusters).forEach(i -> {
-            AtomicInteger clusterSize = new AtomicInteger();
-            Point2D sum = dataset.getLabels()
-                    .entrySet()
-                    .stream()
-                    .filter(entry -> i == Integer.parseInt(entry.getValue()))
-                    .map(entry -> dataset.getLocations().get(entry.getKey()))
-                    .reduce(new Point2D(0, 0), (p, q) -> {
-                        clusterSize.incrementAndGet();
-                        return new Point2D(p.getX() + q.getX(), p.getY() + q.getY());
-                    });
-            Point2D newCentroid = new Point2D(sum.getX() / clusterSize.get(), sum.getY() / clusterSize.get());
-            if (!newCentroid.equals(centroids.get(i))) {
-                centroids.set(i, newCentroid);
-                tocontinue.set(true);
+            if (batch.isEmpty())
+                break;
+            if (batch.size() == 1)
+                batch.get(0).compute();
+            else
+                pool.invoke(new RecursiveAction() {
+                    @Override
+                    protected void compute() { invokeAll(batch); }
+                });
+            shown = best;
+            for (int slot = 0; slot < running.length; slot++) {
+                Restart start = running[slot];
+                if (start == null)
+                    continue;
+                if (start.isBetterThan(shown))
+                    shown = start;
+                if (start.isFinished()) {
+                    running[slot] = null;
+                    if (start.isBetterThan(best)) {
+                        if (best != null)
+                            spare.add(best);
+                        best = start;
+                    }
+                    else
+                        spare.add(start);
+                }
             }
-        });
+            iterations = shown.iterations;
+            shown.engine.publish(columns);
+            collector.put(tracker.changes());
+        }
+        tocontinue.set(false);
+        if (shown != null && shown.reason != null)
+            stopReason = shown.reason;
+        else
+            stopReason = isStopped() ? StopReason.CANCELLED : StopReason.MAX_ITERATIONS;
+        collector.put(null);
     }
 
-    private static double computeDistance(Point2D p, Point2D q) {
-        return Math.sqrt(Math.pow(p.getX() - q.getX(), 2) + Math.pow(p.getY() - q.getY(), 2));
+    /**
+     * Decides whether an iteration changed so little that the run can stop. The centroid shift is measured against
+     * the root mean square distance from the points to their centroids, so the tolerance does not depend on the scale
+     * of the data.
+     *
+     * @param moved           whether any centroid moved
+     * @param shift           how far the centroid that moved the most moved
+     * @param inertia         the inertia of the iteration
+     * @param previousInertia the inertia of the iteration before, or <code>NaN</code> for the first one
+     * @param size            the number of points
+     * @param tolerance       the relative change below which the run stops, or 0 to stop only when nothing moves
+     * @return why the run should stop, or <code>null</code> to go on
+     */
+    static StopReason stopReason(boolean moved, double shift, double inertia, double previousInertia, int size, double tolerance) {
+        if (!moved)
+            return StopReason.CONVERGED;
+        if (tolerance <= 0)
+            return null;
+        if (shift <= tolerance * Math.sqrt(inertia / size))
+            return StopReason.CENTROID_SHIFT;
+        if (previousInertia > 0 && Math.abs(previousInertia - inertia) <= tolerance * previousInertia)
+            return StopReason.INERTIA_CHANGE;
+        return null;
     }
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,320 @@
+package algorithms;
+
+import data.ColumnarDataSet;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs the iterations of k-means over coordinates held in primitive arrays. Each iteration assigns every point to its
+ * nearest centroid and sums the coordinates of each cluster in the same pass, which is split into index ranges on a
+ * {@link ForkJoinPool}. Every range accumulates into its own partial sums, so the ranges never contend, and the sums
+ * are merged as the ranges join, along with the inertia of the assignment. Labels are only written back to a dataset
+ * when an iteration is published.
+ * <p>
+ * With many clusters, most of the work of an exhaustive pass goes into distances to centroids that cannot be the
+ * nearest. By default the engine therefore keeps Hamerly's bounds for every point: an upper bound on the distance to
+ * its centroid and a lower bound on the distance to any other. Both are moved by how far the centroids drifted, and a
+ * point is only compared with every centroid when its bounds, or half the gap between its centroid and the next
+ * nearest one, no longer prove that its assignment stands. Apart from ties between equally near centroids, the
+ * assignments are the same as those of the exhaustive pass.
+ */
+final class KMeansEngine {
+
+    /** Ranges of at most this many points are assigned on a single thread. */
+    private static final int CHUNK_SIZE = 1 << 14;
+
+    /** The cluster sums and sizes of one range of points. */
+    private static final class Partial {
+        private final double[] sumXs;
+        private final double[] sumYs;
+        private final int[]    sizes;
+        private double         inertia;
+
+        Partial(int k) {
+            sumXs = new double[k];
+            sumYs = new double[k];
+            sizes = new int[k];
+        }
+
+        Partial merge(Partial other) {
+            for (int c = 0; c < sizes.length; c++) {
+                sumXs[c] += other.sumXs[c];
+                sumYs[c] += other.sumYs[c];
+                sizes[c] += other.sizes[c];
+            }
+            inertia += other.inertia;
+            return this;
+        }
+    }
+
+    @SuppressWarnings("serial") // tasks are never serialized
+    private final class AssignTask extends RecursiveTask<Partial> {
+
+        private final int from;
+        private final int to;
+
+        AssignTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from > CHUNK_SIZE) {
+                int        middle = (from + to) >>> 1;
+                AssignTask left   = new AssignTask(from, middle);
+                left.fork();
+                Partial right = new AssignTask(middle, to).compute();
+                return right.merge(left.join());
+            }
+            Partial partial = new Partial(k);
+            for (int i = from; i < to; i++) {
+                int    cluster = bounded && boundsValid ? assignWithBounds(i) : assignExhaustively(i);
+                double dx      = xs[i] - centroidXs[cluster];
+                double dy      = ys[i] - centroidYs[cluster];
+                partial.inertia += dx * dx + dy * dy;
+                partial.sumXs[cluster] += xs[i];
+                partial.sumYs[cluster] += ys[i];
+                partial.sizes[cluster]++;
+            }
+            return partial;
+        }
+    }
+
+    /** Lowers the distance of every point in a range to its nearest seed by a new seed, and sums their squares. */
+    @SuppressWarnings("serial") // tasks are never serialized
+    private final class SeedTask extends RecursiveTask<Double> {
+
+        private final int    from;
+        private final int    to;
+        private final double seedX;
+        private final double seedY;
+
+        SeedTask(int from, int to, double seedX, double seedY) {
+            this.from = from;
+            this.to = to;
+            this.seedX = seedX;
+            this.seedY = seedY;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from > CHUNK_SIZE) {
+                int      middle = (from + to) >>> 1;
+                SeedTask left   = new SeedTask(from, middle, seedX, seedY);
+                left.fork();
+                double right = new SeedTask(middle, to, seedX, seedY).compute();
+                return right + left.join();
+            }
+            double sum = 0;
+            for (int i = from; i < to; i++) {
+                double dx       = xs[i] - seedX;
+                double dy       = ys[i] - seedY;
+                double distance = dx * dx + dy * dy;
+                if (distance < upper[i])
+                    upper[i] = distance;
+                sum += upper[i];
+            }
+            return sum;
+        }
+    }
+
+    private final double[]     xs;
+    private final double[]     ys;
+    private final int          size;
+    private final int          k;
+    private final int[]        assignments;
+    private final double[]     centroidXs;
+    private final double[]     centroidYs;
+    private final double[]     upper;    // per point, at least the distance to its centroid
+    private final double[]     lower;    // per point, at most the distance to any other centroid
+    private final double[]     drifts;   // per centroid, how far it moved in the last iteration
+    private final double[]     halfGaps; // per centroid, half the distance to the nearest other centroid
+    private final ForkJoinPool pool;
+    private boolean            bounded;
+    private boolean            boundsValid;
+    private double             maxDrift;
+    private double             inertia;
+
+    /**
+     * @param xs   the x coordinates of the points, of which only the first <code>size</code> are used
+     * @param ys   the y coordinates of the points
+     * @param size the number of points
+     * @param k    the number of clusters, lowered to the number of points if there are fewer
+     * @param pool the pool to run the assignment passes on
+     */
+    KMeansEngine(double[] xs, double[] ys, int size, int k, ForkJoinPool pool) {
+        this.xs = xs;
+        this.ys = ys;
+        this.size = size;
+        this.k = Math.min(k, size);
+        this.assignments = new int[size];
+        this.centroidXs = new double[this.k];
+        this.centroidYs = new double[this.k];
+        this.upper = new double[size];
+        this.lower = new double[size];
+        this.drifts = new double[this.k];
+        this.halfGaps = new double[this.k];
+        this.pool = pool;
+        this.bounded = true;
+    }
+
+    KMeansEngine(ColumnarDataSet columns, int k) {
+        this(columns.getXs(), columns.getYs(), columns.size(), k, ForkJoinPool.commonPool());
+    }
+
+    int getK() { return k; }
+
+    int size() { return size; }
+
+    double getCentroidX(int cluster) { return centroidXs[cluster]; }
+
+    double getCentroidY(int cluster) { return centroidYs[cluster]; }
+
+    int getAssignment(int index) { return assignments[index]; }
+
+    /** @return the sum of the squared distances from every point to the centroid it was assigned to in the last pass */
+    double getInertia() { return inertia; }
+
+    /** @return how far the centroid that moved the most in the last iteration moved */
+    double getMaxShift() { return maxDrift; }
+
+    /** Chooses between the bounded assignment pass, which is the default, and the exhaustive one. */
+    void setBounded(boolean bounded) {
+        this.bounded = bounded;
+        this.boundsValid = false;
+    }
+
+    /**
+     * Places the centroids by k-means++ seeding: the first on a point picked at random, and every next one on a point
+     * picked with a probability proportional to its squared distance from the nearest centroid placed so far, so that
+     * the seeds spread over the data.
+     */
+    void seed(Random random) {
+        boundsValid = false;
+        if (k == 0)
+            return;
+        Arrays.fill(upper, 0, size, Double.MAX_VALUE);
+        int seed = random.nextInt(size);
+        for (int c = 0; c < k; c++) {
+            centroidXs[c] = xs[seed];
+            centroidYs[c] = ys[seed];
+            if (c + 1 == k)
+                break;
+            double total  = pool.invoke(new SeedTask(0, size, xs[seed], ys[seed]));
+            double target = random.nextDouble() * total;
+            seed = random.nextInt(size);
+            for (int i = 0; i < size && total > 0; i++) {
+                target -= upper[i];
+                if (target < 0 && upper[i] > 0) {
+                    seed = i;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Assigns every point to its nearest centroid and moves each centroid to the mean of its points. A cluster left
+     * without points keeps its centroid.
+     *
+     * @return whether any centroid moved
+     */
+    boolean iterate() {
+        if (k == 0)
+            return false;
+        Partial sums = pool.invoke(new AssignTask(0, size));
+        inertia = sums.inertia;
+        boundsValid = bounded;
+        boolean moved = false;
+        maxDrift = 0;
+        for (int c = 0; c < k; c++) {
+            drifts[c] = 0;
+            if (sums.sizes[c] == 0)
+                continue;
+            double x = sums.sumXs[c] / sums.sizes[c];
+            double y = sums.sumYs[c] / sums.sizes[c];
+            if (x != centroidXs[c] || y != centroidYs[c]) {
+                drifts[c] = distance(x, y, centroidXs[c], centroidYs[c]);
+                maxDrift = Math.max(maxDrift, drifts[c]);
+                centroidXs[c] = x;
+                centroidYs[c] = y;
+                moved = true;
+            }
+        }
+        if (bounded)
+            updateHalfGaps();
+        return moved;
+    }
+
+    /**
+     * Labels every point of a dataset with the index of its cluster, looking each label up in the dictionary just once.
+     *
+     * @param columns the dataset the points were taken from
+     */
+    void publish(ColumnarDataSet columns) {
+        int[] labelCodes = new int[k];
+        for (int c = 0; c < k; c++)
+            labelCodes[c] = columns.labelCodeOf(Integer.toString(c));
+        for (int i = 0; i < size; i++)
+            columns.setLabelCode(i, labelCodes[assignments[i]]);
+    }
+
+    private int assignWithBounds(int i) {
+        int cluster = assignments[i];
+        upper[i] += drifts[cluster];
+        lower[i] -= maxDrift;
+        double bound = Math.max(lower[i], halfGaps[cluster]);
+        if (upper[i] <= bound)
+            return cluster;
+        upper[i] = distance(xs[i], ys[i], centroidXs[cluster], centroidYs[cluster]);
+        if (upper[i] <= bound)
+            return cluster;
+        return assignExhaustively(i);
+    }
+
+    /** Compares a point with every centroid, recording the distances to the nearest and second nearest as bounds. */
+    private int assignExhaustively(int i) {
+        int    nearest  = 0;
+        double shortest = Double.MAX_VALUE;
+        double second   = Double.MAX_VALUE;
+        for (int c = 0; c < k; c++) {
+            double dx       = xs[i] - centroidXs[c];
+            double dy       = ys[i] - centroidYs[c];
+            double distance = dx * dx + dy * dy;
+            if (distance < shortest) {
+                second = shortest;
+                shortest = distance;
+                nearest = c;
+            } else if (distance < second) {
+                second = distance;
+            }
+        }
+        assignments[i] = nearest;
+        upper[i] = Math.sqrt(shortest);
+        lower[i] = Math.sqrt(second);
+        return nearest;
+    }
+
+    private void updateHalfGaps() {
+        Arrays.fill(halfGaps, Double.MAX_VALUE);
+        for (int c = 0; c < k; c++) {
+            for (int other = c + 1; other < k; other++) {
+                double gap = 0.5 * distance(centroidXs[c], centroidYs[c], centroidXs[other], centroidYs[other]);
+                if (gap < halfGaps[c])
+                    halfGaps[c] = gap;
+                if (gap < halfGaps[other])
+                    halfGaps[other] = gap;
+            }
+        }
+    }
+
+    private static double distance(double x1, double y1, double x2, double y2) {
+        double dx = x1 - x2;
+        double dy = y1 - y2;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -0,0 +1,154 @@
+package algorithms;
+
+import data.ColumnarDataSet;
+
+import java.util.Random;
+
+/**
+ * Trains a logistic regression model that separates the instances of two labels by a straight line, using mini-batch
+ * stochastic gradient descent. The labelled instances are copied once into primitive arrays with their coordinates
+ * standardized, so that one learning rate suits data at any scale, and every step after that runs without allocating:
+ * the batch indices live in an array kept for the life of the model. A batch is small enough that its gradient is
+ * summed on the calling thread in less time than handing parts of it to other threads would take.
+ */
+final class LogisticRegression {
+
+    /** The label of instances that belong to neither class. */
+    static final String UNLABELED = "null";
+
+    /** The number of instances in each batch. */
+    static final int BATCH_SIZE = 256;
+
+    private static final double LEARNING_RATE = 0.5;
+    private static final double DECAY         = 0.01;
+    private static final double L2            = 1e-4;
+
+    private final double[] us;      // standardized x coordinates of the labelled instances
+    private final double[] vs;      // standardized y coordinates
+    private final double[] targets; // 1 for the second label, 0 for the first
+    private final int      size;
+    private final int[]    batch;
+    private final Random   random;
+    private final double   meanX;
+    private final double   meanY;
+    private final double   scaleX;
+    private final double   scaleY;
+    private final String[] labels;
+    private double         bias;
+    private double         weightX;
+    private double         weightY;
+    private int            steps;
+
+    /**
+     * Prepares a model for the first two labels of the dataset with any instances, leaving out unlabelled ones.
+     *
+     * @param columns the instances to train on
+     * @param random  the source of the batches
+     */
+    LogisticRegression(ColumnarDataSet columns, Random random) {
+        int[] codes = new int[2];
+        int   found = 0;
+        for (int code = 0; code < columns.getLabelDictionary().size() && found < 2; code++) {
+            if (columns.getLabelSize(code) > 0 && !UNLABELED.equals(columns.labelOf(code)))
+                codes[found++] = code;
+        }
+        labels = new String[found];
+        for (int c = 0; c < found; c++)
+            labels[c] = columns.labelOf(codes[c]);
+        int count = found < 2 ? 0 : columns.getLabelSize(codes[0]) + columns.getLabelSize(codes[1]);
+        us = new double[count];
+        vs = new double[count];
+        targets = new double[count];
+        int[]    labelCodes = columns.getLabelCodes();
+        double[] xs         = columns.getXs();
+        double[] ys         = columns.getYs();
+        int      n          = 0;
+        for (int i = 0; i < columns.size() && n < count; i++) {
+            if (labelCodes[i] == codes[0] || labelCodes[i] == codes[1]) {
+                us[n] = xs[i];
+                vs[n] = ys[i];
+                targets[n++] = labelCodes[i] == codes[1] ? 1 : 0;
+            }
+        }
+        size = count;
+        meanX = mean(us);
+        meanY = mean(vs);
+        scaleX = deviation(us, meanX);
+        scaleY = deviation(vs, meanY);
+        for (int i = 0; i < size; i++) {
+            us[i] = (us[i] - meanX) / scaleX;
+            vs[i] = (vs[i] - meanY) / scaleY;
+        }
+        this.batch = new int[size == 0 ? 0 : BATCH_SIZE];
+        this.random = random;
+    }
+
+    /** @return whether the dataset had instances of two labels to separate */
+    boolean canTrain() { return size > 0; }
+
+    /** @return the labels told apart by the model, the one predicted at probability zero first */
+    String[] getLabels() { return labels.clone(); }
+
+    int getSteps() { return steps; }
+
+    /**
+     * Draws a batch and moves the weights against its mean gradient of the log loss, with a learning rate that decays
+     * as the steps go by.
+     */
+    void step() {
+        if (size == 0)
+            return;
+        for (int b = 0; b < batch.length; b++)
+            batch[b] = random.nextInt(size);
+        double gradientBias = 0;
+        double gradientX    = 0;
+        double gradientY    = 0;
+        for (int i : batch) {
+            double error = sigmoid(bias + weightX * us[i] + weightY * vs[i]) - targets[i];
+            gradientBias += error;
+            gradientX += error * us[i];
+            gradientY += error * vs[i];
+        }
+        double rate = LEARNING_RATE / (1 + DECAY * steps++) / batch.length;
+        bias -= rate * gradientBias;
+        weightX -= rate * (gradientX + L2 * batch.length * weightX);
+        weightY -= rate * (gradientY + L2 * batch.length * weightY);
+    }
+
+    /**
+     * @return the probability that an instance at the given location has the second label
+     */
+    double probability(double x, double y) {
+        return sigmoid(bias + weightX * (x - meanX) / scaleX + weightY * (y - meanY) / scaleY);
+    }
+
+    /**
+     * Expresses the decision boundary, where both labels are equally likely, in the original coordinates.
+     *
+     * @return the coefficients <code>a</code>, <code>b</code> and <code>c</code> of the line <code>ax + by = c</code>
+     */
+    double[] line() {
+        double a = weightX / scaleX;
+        double b = weightY / scaleY;
+        return new double[]{a, b, a * meanX + b * meanY - bias};
+    }
+
+    private static double sigmoid(double z) {
+        return 1 / (1 + Math.exp(-z));
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double value : values)
+            sum += value;
+        return values.length == 0 ? 0 : sum / values.length;
+    }
+
+    private static double deviation(double[] values, double mean) {
+        double sum = 0;
+        for (double value : values)
+            sum += (value - mean) * (value - mean);
+        double deviation = values.length == 0 ? 0 : Math.sqrt(sum / values.length);
+        return deviation > 0 ? deviation : 1;
+    }
+}
@@ -0,0 +1,53 @@
+package algorithms;
+
+import algorithmbase.Classifier;
+import data.DataSet;
+import data.ListCollector;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Classifies with logistic regression trained by mini-batch gradient descent. Every update shows the line on which
+ * both labels are equally likely, given as the coefficients of <code>ax + by = c</code>.
+ */
+public class LogisticRegressionClassifier extends Classifier {
+
+    private DataSet dataset;
+
+    private final int maxIterations;
+    private final int updateInterval;
+
+    private ListCollector collector;
+
+    public LogisticRegressionClassifier(ListCollector collector, DataSet dataset, int maxIterations, int updateInterval) {
+        this.dataset = dataset;
+        this.maxIterations = maxIterations;
+        this.updateInterval = updateInterval;
+        this.collector = collector;
+    }
+
+    @Override
+    public int getMaxIterations() { return maxIterations; }
+
+    @Override
+    public int getUpdateInterval() { return updateInterval; }
+
+    @Override
+    public boolean tocontinue() { return !isStopped(); }
+
+    @Override
+    public void run() {
+        LogisticRegression model = new LogisticRegression(dataset.getColumns(), new Random());
+        int iteration = 0;
+        while (model.canTrain() && iteration < maxIterations && tocontinue()) {
+            int batchEnd = Math.min(maxIterations, iteration + Math.max(1, updateInterval));
+            for (; iteration < batchEnd && tocontinue(); iteration++)
+                model.step();
+            double[] line = model.line();
+            output = Arrays.asList(line[0], line[1], line[2]);
+            collector.put(output);
+        }
+        collector.put(null);
+    }
+}
@@ -0,0 +1,165 @@
+package algorithms;
+
+import data.ColumnarDataSet;
+
+import java.nio.DoubleBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs mini-batch k-means: every step samples a fixed number of points, assigns them to their nearest centroids and
+ * moves each centroid towards its sampled points at a rate that falls with the number of points it has absorbed. A step
+ * costs the same however many points there are, and the points only have to be readable by index, so they can be the
+ * columns of a dataset as well as the coordinate blocks of a memory-mapped <code>.tsdb</code> snapshot. A full pass over
+ * the points is only made by {@link #assign(int, int, int[])}, one chunk at a time.
+ */
+final class MiniBatchKMeans {
+
+    static final int BATCH_SIZE = 1024;
+    static final int CHUNK_SIZE = 1 << 16;
+
+    /** The number of sampled points the seeds are chosen from, when there are more points than this. */
+    private static final int SEED_SAMPLE_SIZE = 1 << 16;
+
+    private final DoubleBuffer xs;
+    private final DoubleBuffer ys;
+    private final int          size;
+    private final int          k;
+    private final Random       random;
+    private final double[]     centroidXs;
+    private final double[]     centroidYs;
+    private final long[]       absorbed;
+    private final int[]        batch;
+    private final int[]        batchAssignments;
+    private final double[]     chunkXs;
+    private final double[]     chunkYs;
+
+    /**
+     * @param xs     the x coordinates of the points, from index 0 to the limit of the buffer
+     * @param ys     the y coordinates of the points
+     * @param k      the number of clusters, lowered to the number of points if there are fewer
+     * @param random the source of the samples
+     */
+    MiniBatchKMeans(DoubleBuffer xs, DoubleBuffer ys, int k, Random random) {
+        this.xs = xs;
+        this.ys = ys;
+        this.size = xs.limit();
+        this.k = Math.min(k, size);
+        this.random = random;
+        this.centroidXs = new double[this.k];
+        this.centroidYs = new double[this.k];
+        this.absorbed = new long[this.k];
+        this.batch = new int[Math.min(BATCH_SIZE, size)];
+        this.batchAssignments = new int[batch.length];
+        this.chunkXs = new double[Math.min(CHUNK_SIZE, size)];
+        this.chunkYs = new double[chunkXs.length];
+    }
+
+    MiniBatchKMeans(ColumnarDataSet columns, int k, Random random) {
+        this(DoubleBuffer.wrap(columns.getXs(), 0, columns.size()), DoubleBuffer.wrap(columns.getYs(), 0, columns.size()),
+             k, random);
+    }
+
+    int getK() { return k; }
+
+    double getCentroidX(int cluster) { return centroidXs[cluster]; }
+
+    double getCentroidY(int cluster) { return centroidYs[cluster]; }
+
+    int getBatchSize() { return batch.length; }
+
+    /** @return the index of a point of the last batch */
+    int getBatchPoint(int position) { return batch[position]; }
+
+    /** @return the cluster a point of the last batch was assigned to */
+    int getBatchAssignment(int position) { return batchAssignments[position]; }
+
+    /** Chooses the initial centroids by k-means++ seeding over a sample of the points. */
+    void seed() {
+        if (k == 0)
+            return;
+        int      sampleSize = Math.min(size, Math.max(SEED_SAMPLE_SIZE, k));
+        double[] sampleXs   = new double[sampleSize];
+        double[] sampleYs   = new double[sampleSize];
+        for (int i = 0; i < sampleSize; i++) {
+            int point = sampleSize == size ? i : random.nextInt(size);
+            sampleXs[i] = xs.get(point);
+            sampleYs[i] = ys.get(point);
+        }
+        KMeansEngine seeder = new KMeansEngine(sampleXs, sampleYs, sampleSize, k, ForkJoinPool.commonPool());
+        seeder.seed(random);
+        for (int c = 0; c < k; c++) {
+            centroidXs[c] = seeder.getCentroidX(c);
+            centroidYs[c] = seeder.getCentroidY(c);
+        }
+    }
+
+    /**
+     * Samples a batch of points, assigns each to its nearest centroid, and then moves every centroid towards the points
+     * assigned to it.
+     */
+    void step() {
+        if (k == 0)
+            return;
+        for (int j = 0; j < batch.length; j++) {
+            batch[j] = random.nextInt(size);
+            batchAssignments[j] = nearest(xs.get(batch[j]), ys.get(batch[j]));
+        }
+        for (int j = 0; j < batch.length; j++) {
+            int    cluster = batchAssignments[j];
+            double rate    = 1.0 / ++absorbed[cluster];
+            centroidXs[cluster] += rate * (xs.get(batch[j]) - centroidXs[cluster]);
+            centroidYs[cluster] += rate * (ys.get(batch[j]) - centroidYs[cluster]);
+        }
+    }
+
+    /**
+     * Assigns a chunk of consecutive points to their nearest centroids, copying their coordinates out of the buffers in
+     * bulk first.
+     *
+     * @param from        the index of the first point, a multiple of {@link #CHUNK_SIZE} in a full pass
+     * @param to          the index just past the last point, at most {@link #CHUNK_SIZE} after <code>from</code>
+     * @param assignments receives the cluster of each point, starting at index 0
+     */
+    @SuppressWarnings("cast") // position returns a Buffer on Java 8, and only newer JDKs find the casts redundant
+    void assign(int from, int to, int[] assignments) {
+        int length = to - from;
+        ((DoubleBuffer) xs.duplicate().position(from)).get(chunkXs, 0, length);
+        ((DoubleBuffer) ys.duplicate().position(from)).get(chunkYs, 0, length);
+        for (int i = 0; i < length; i++)
+            assignments[i] = nearest(chunkXs[i], chunkYs[i]);
+    }
+
+    /**
+     * Labels every point of a dataset with the index of its nearest centroid, in a full pass made chunk by chunk.
+     *
+     * @param columns the dataset the points were taken from
+     */
+    void publish(ColumnarDataSet columns) {
+        int[] labelCodes = new int[k];
+        for (int c = 0; c < k; c++)
+            labelCodes[c] = columns.labelCodeOf(Integer.toString(c));
+        int[] assignments = new int[chunkXs.length];
+        for (int from = 0; from < size; from += CHUNK_SIZE) {
+            int to = Math.min(size, from + CHUNK_SIZE);
+            assign(from, to, assignments);
+            for (int i = from; i < to; i++)
+                columns.setLabelCode(i, labelCodes[assignments[i - from]]);
+        }
+    }
+
+    private int nearest(double x, double y) {
+        int    nearest  = 0;
+        double shortest = Double.MAX_VALUE;
+        for (int c = 0; c < k; c++) {
+            double dx       = x - centroidXs[c];
+            double dy       = y - centroidYs[c];
+            double distance = dx * dx + dy * dy;
+            if (distance < shortest) {
+                shortest = distance;
+                nearest = c;
+            }
+        }
+        return nearest;
+    }
+}
@@ -0,0 +1,72 @@
+package algorithms;
+
+import algorithmbase.Clusterer;
+import data.ColumnarDataSet;
+import data.DataCollector;
+import data.DataSet;
+import data.LabelDelta;
+
+import java.util.Random;
+
+/**
+ * Clusters with mini-batch k-means, which only looks at a small random batch of instances per iteration instead of
+ * passing over all of them. Every update follows as many batches as the update interval, and relabels the instances
+ * of the last batch by their clusters; once the iterations are done, a final pass labels every instance.
+ */
+public class MiniBatchKMeansClusterer extends Clusterer {
+
+    private DataSet dataset;
+
+    private final int maxIterations;
+    private final int updateInterval;
+
+    private DataCollector collector;
+
+    public MiniBatchKMeansClusterer(DataCollector dataCollector, DataSet dataset, int maxIterations, int updateInterval, int numberOfClusters) {
+        super(numberOfClusters);
+        this.dataset = dataset;
+        this.maxIterations = maxIterations;
+        this.updateInterval = updateInterval;
+        collector = dataCollector;
+    }
+
+    @Override
+    public int getMaxIterations() { return maxIterations; }
+
+    @Override
+    public int getUpdateInterval() { return updateInterval; }
+
+    @Override
+    public boolean tocontinue() { return !isStopped(); }
+
+    @Override
+    public void run() {
+        ColumnarDataSet    columns = dataset.getColumns();
+        LabelDelta.Tracker tracker = new LabelDelta.Tracker(columns);
+        MiniBatchKMeans    engine  = new MiniBatchKMeans(columns, numberOfClusters, new Random());
+        int[]              codes   = new int[numberOfClusters];
+        int[]              batch   = new int[engine.getBatchSize()];
+        for (int c = 0; c < numberOfClusters; c++)
+            codes[c] = columns.labelCodeOf(Integer.toString(c));
+        engine.seed();
+        int iteration = 0;
+        while (iteration < maxIterations && tocontinue()) {
+            int batchEnd = Math.min(maxIterations, iteration + Math.max(1, updateInterval));
+            for (; iteration < batchEnd && tocontinue(); iteration++)
+                engine.step();
+            iterations = iteration;
+            for (int j = 0; j < batch.length; j++) {
+                batch[j] = engine.getBatchPoint(j);
+                columns.setLabelCode(batch[j], codes[engine.getBatchAssignment(j)]);
+            }
+            collector.put(tracker.changes(batch, batch.length));
+        }
+        if (isStopped()) {
+            stopReason = StopReason.CANCELLED;
+        } else {
+            engine.publish(columns);
+            collector.put(tracker.changes());
+        }
+        collector.put(null);
+    }
+}
@@ -49,10 +49,10 @@ public class RandomClassifier extends Classifier {
 
     @Override
     public void run() {
-        for (int i = 1; i <= maxIterations; i++) {
-            int xCoefficient =  new Long(-1 * Math.round((2 * RAND.nextDouble() - 1) * 10)).intValue();
-            int yCoefficient = 10;
-            int constant     = RAND.nextInt(11);
+        for (int i = 1; i <= maxIterations && !isStopped(); i++) {
+            double xCoefficient = -1 * (2 * RAND.nextDouble() - 1) * 10;
+            double yCoefficient = 10;
+            double constant     = RAND.nextDouble() * 10;
             output = Arrays.asList(xCoefficient, yCoefficient, constant);
             double random = RAND.nextDouble();
             if(i % updateInterval == 0 || i > maxIterations * .6 && random < 0.05){
@@ -1,8 +1,10 @@
 package algorithms;
 
 import algorithmbase.Clusterer;
+import data.ColumnarDataSet;
 import data.DataCollector;
 import data.DataSet;
+import data.LabelDelta;
 
 import java.util.Random;
 
@@ -35,19 +37,29 @@ public class RandomClusterer extends Clusterer {
 
     @Override
     public boolean tocontinue() {
-        return true;
+        return !isStopped();
     }
 
     @Override
     public void run() {
+        ColumnarDataSet    columns  = dataset.getColumns();
+        LabelDelta.Tracker tracker  = new LabelDelta.Tracker(columns);
+        int                clusters = Math.max(1, Math.min(numberOfClusters, columns.size()));
+        int[]              codes    = new int[clusters];
+        for (int c = 0; c < clusters; c++)
+            codes[c] = columns.labelCodeOf(String.valueOf(c + 1));
         int iteration = 0;
         while (iteration < maxIterations && tocontinue()) {
-            iteration += updateInterval;
-            for(String instance: dataset.getLabels().keySet()){
-                dataset.updateLabel(instance, String.valueOf(RAND.nextInt(numberOfClusters)+1));
+            int batchEnd = Math.min(maxIterations, iteration + Math.max(1, updateInterval));
+            for (; iteration < batchEnd && tocontinue(); iteration++) {
+                for (int i = 0; i < columns.size(); i++)
+                    columns.setLabelCode(i, codes[RAND.nextInt(clusters)]);
             }
-            collector.put(dataset);
+            iterations = iteration;
+            collector.put(tracker.changes());
         }
+        if (isStopped())
+            stopReason = StopReason.CANCELLED;
         collector.put(null);
     }
 }
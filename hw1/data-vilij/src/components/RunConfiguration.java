@@ -15,10 +15,25 @@ import static settings.AppPropertyTypes.*;
 public class RunConfiguration extends Stage implements Dialog {
 
     public static class ClusteringConfig extends ConfigInfo{
+        /** The tolerance of a clustering run unless another is set. */
+        static final double DEFAULT_TOLERANCE = 1e-4;
+        /** The most independent runs a clusterer can be restarted from. */
+        static final int MAX_RESTARTS = 64;
+
         private int labelNumber;
+        private double tolerance;
+        private int restarts;
+        private final boolean restartable;
         public ClusteringConfig(){
+            this(false);
+        }
+        /** @param restartable whether the clusterer can be restarted from different seeds */
+        public ClusteringConfig(boolean restartable){
             super();
             this.labelNumber = 3;
+            this.tolerance = DEFAULT_TOLERANCE;
+            this.restarts = 1;
+            this.restartable = restartable;
         }
 
         public int getLabelNumber() {
@@ -27,13 +42,51 @@ public class RunConfiguration extends Stage implements Dialog {
         void setLabelNumber(int labelNumber) {
             this.labelNumber = labelNumber;
         }
+        /** @return the relative change below which a clusterer stops early, or 0 to run until nothing changes */
+        public double getTolerance() {
+            return tolerance;
+        }
+        void setTolerance(double tolerance) {
+            this.tolerance = tolerance;
+        }
+        /** @return whether the clusterer can be restarted, and so whether {@link #getRestarts()} applies to it */
+        public boolean isRestartable() {
+            return restartable;
+        }
+        /** @return the number of independent runs from different seeds, of which the best is kept */
+        public int getRestarts() {
+            return restarts;
+        }
+        void setRestarts(int restarts) {
+            this.restarts = restarts;
+        }
+        int confirmRestarts(String restarts) {
+            try{
+                int i = Integer.parseInt(restarts);
+                if(i<1)
+                    return 1;
+                return Math.min(i, MAX_RESTARTS);
+            }
+            catch(Exception e){
+                return 1;
+            }
+        }
+        double confirmTolerance(String tolerance) {
+            try{
+                double d = Double.parseDouble(tolerance);
+                if(Double.isNaN(d) || d<0)
+                    return 0;
+                return Math.min(d, 1);
+            }
+            catch(Exception e){
+                return DEFAULT_TOLERANCE;
+            }
+        }
         int confirmLabels(String labels) {
             try{
                 int i = Integer.parseInt(labels);
                 if(i<2)
                     return 2;
-                else if(i>4)
-                    return 4;
                 return i;
             }
             catch(Exception e){
@@ -43,11 +96,19 @@ public class RunConfiguration extends Stage implements Dialog {
     }
 
     public static class ConfigInfo{
+        /** The frame rate of a continuous run unless another is set, which shows each update for a second. */
+        static final int DEFAULT_FRAME_RATE = 1;
+        /** The highest frame rate a continuous run can be shown at. */
+        static final int MAX_FRAME_RATE = 60;
+
         private int maxIterations;
         private int updateInterval;
         private boolean continuous;
+        private boolean maxSpeed;
+        private int frameRate;
         public ConfigInfo(){
             this.maxIterations = 40; this.updateInterval = 5; this.continuous = true;
+            this.maxSpeed = false; this.frameRate = DEFAULT_FRAME_RATE;
         }
 
         public int getMaxIterations() {
@@ -68,6 +129,23 @@ public class RunConfiguration extends Stage implements Dialog {
         void setContinuous(boolean continuous) {
             this.continuous = continuous;
         }
+        /**
+         * @return whether a continuous run computes without waiting for the updates to be shown, so that only the
+         *         latest update is drawn at each frame
+         */
+        public boolean isMaxSpeed() {
+            return maxSpeed;
+        }
+        void setMaxSpeed(boolean maxSpeed) {
+            this.maxSpeed = maxSpeed;
+        }
+        /** @return the number of frames per second at which a continuous run is shown */
+        public int getFrameRate() {
+            return frameRate;
+        }
+        void setFrameRate(int frameRate) {
+            this.frameRate = frameRate;
+        }
         int confirmIterations(String iterations){
             try{
                 int i = Integer.parseInt(iterations);
@@ -80,6 +158,18 @@ public class RunConfiguration extends Stage implements Dialog {
             }
         }
 
+        int confirmFrameRate(String rate){
+            try{
+                int i = Integer.parseInt(rate);
+                if(i<1)
+                    return 1;
+                return Math.min(i, MAX_FRAME_RATE);
+            }
+            catch(Exception e){
+                return DEFAULT_FRAME_RATE;
+            }
+        }
+
         int confirmInterval(String interval, int iterations){
             try{
                 int i = Integer.parseInt(interval);
@@ -101,9 +191,15 @@ public class RunConfiguration extends Stage implements Dialog {
     private TextField updateField;
 
     private CheckBox continuousCheckBox;
+    private CheckBox maxSpeedCheckBox;
+    private TextField frameRateField;
     private TextField labelNumberField;
+    private TextField toleranceField;
+    private TextField restartsField;
     private Button setConfig;
     private HBox labelContainer;
+    private HBox toleranceContainer;
+    private HBox restartsContainer;
     private VBox choiceContainer;
     private PropertyManager manager;
 
@@ -140,10 +236,24 @@ public class RunConfiguration extends Stage implements Dialog {
         Label continuousLabel = new Label(manager.getPropertyValue(CONT.name()));
         continuousCheckBox = new CheckBox();
         HBox continuousPane = new HBox(continuousLabel, continuousCheckBox);
+        Label maxSpeedLabel = new Label(manager.getPropertyValue(MAX_SPEED.name()));
+        maxSpeedCheckBox = new CheckBox();
+        maxSpeedCheckBox.disableProperty().bind(continuousCheckBox.selectedProperty().not());
+        HBox maxSpeedPane = new HBox(maxSpeedLabel, maxSpeedCheckBox);
+        Label frameRateLabel = new Label(manager.getPropertyValue(FRAME_RATE.name()));
+        frameRateField = new TextField();
+        frameRateField.disableProperty().bind(continuousCheckBox.selectedProperty().not());
+        HBox frameRatePane = new HBox(frameRateLabel, frameRateField);
         Label labelNumber = new Label(manager.getPropertyValue(LABEL_NUM.name()));
         labelNumberField = new TextField();
         labelContainer = new HBox(labelNumber, labelNumberField);
-        choiceContainer = new VBox(iterationPane, updatePane, continuousPane);
+        Label toleranceLabel = new Label(manager.getPropertyValue(TOLERANCE.name()));
+        toleranceField = new TextField();
+        toleranceContainer = new HBox(toleranceLabel, toleranceField);
+        Label restartsLabel = new Label(manager.getPropertyValue(RESTARTS.name()));
+        restartsField = new TextField();
+        restartsContainer = new HBox(restartsLabel, restartsField);
+        choiceContainer = new VBox(iterationPane, updatePane, continuousPane, maxSpeedPane, frameRatePane);
         setConfig = new Button(manager.getPropertyValue(SET_CONFIG.name()));
         VBox container = new VBox(choiceContainer, new Separator(), setConfig);
         container.setAlignment(Pos.CENTER);
@@ -155,17 +265,23 @@ public class RunConfiguration extends Stage implements Dialog {
         iterationField.setText(""+config.getMaxIterations());
         updateField.setText(""+config.getUpdateInterval());
         continuousCheckBox.setSelected(config.isContinuous());
+        maxSpeedCheckBox.setSelected(config.isMaxSpeed());
+        frameRateField.setText(""+config.getFrameRate());
         setConfig.setOnAction(null);
         // clusters need number of labels
         if(config instanceof ClusteringConfig) {
             ClusteringConfig c = (ClusteringConfig)config;
             labelNumberField.setText(""+c.getLabelNumber());
-            if (!choiceContainer.getChildren().contains(labelContainer))
-                choiceContainer.getChildren().add(labelContainer);
+            toleranceField.setText(""+c.getTolerance());
+            restartsField.setText(""+c.getRestarts());
+            choiceContainer.getChildren().removeAll(labelContainer, toleranceContainer, restartsContainer);
+            choiceContainer.getChildren().addAll(labelContainer, toleranceContainer);
+            if (c.isRestartable())
+                choiceContainer.getChildren().add(restartsContainer);
             setConfig.setOnAction(e -> applyClusteringSettings(c));
         }
         else {
-            choiceContainer.getChildren().remove(labelContainer);
+            choiceContainer.getChildren().removeAll(labelContainer, toleranceContainer, restartsContainer);
             setConfig.setOnAction(e -> applyClassificationSettings(config));
         }
         show(title, "");
@@ -179,6 +295,10 @@ public class RunConfiguration extends Stage implements Dialog {
         config.setUpdateInterval(interval);
         updateField.setText(""+interval);
         config.setContinuous(continuousCheckBox.isSelected());
+        config.setMaxSpeed(maxSpeedCheckBox.isSelected());
+        int rate = config.confirmFrameRate(frameRateField.getText());
+        frameRateField.setText(""+rate);
+        config.setFrameRate(rate);
     }
 
     private void applyClusteringSettings(ClusteringConfig config){
@@ -186,6 +306,14 @@ public class RunConfiguration extends Stage implements Dialog {
         int labelNum = config.confirmLabels(labelNumberField.getText());
         labelNumberField.setText(""+labelNum);
         config.setLabelNumber(labelNum);
+        double tolerance = config.confirmTolerance(toleranceField.getText());
+        toleranceField.setText(""+tolerance);
+        config.setTolerance(tolerance);
+        if(config.isRestartable()) {
+            int restarts = config.confirmRestarts(restartsField.getText());
+            restartsField.setText(""+restarts);
+            config.setRestarts(restarts);
+        }
     }
 
 }
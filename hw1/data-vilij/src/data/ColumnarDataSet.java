@@ -0,0 +1,414 @@
+package data;
+
+import javafx.geometry.Point2D;
+
+import java.util.*;
+
+/**
+ * A dataset stored column by column in primitive arrays. Instance <code>i</code> has its name in the name table, its
+ * coordinates in {@link #getXs()} and {@link #getYs()}, and its label as an <code>int</code> code into the label
+ * dictionary, so an instance costs two doubles, an int and a name reference instead of two hash entries and a boxed
+ * point.
+ * <p>
+ * Names are looked up through an open-addressing table of indices rather than a {@link HashMap}, and instances are
+ * kept in the order they were added. The {@link #labelView()} and {@link #locationView()} maps present the columns as
+ * the name-to-label and name-to-location maps that {@link DataSet} has always exposed. The number of instances carrying
+ * each label is kept up to date as instances are added, relabeled and removed.
+ */
+public class ColumnarDataSet {
+
+    /** The label code of an instance that has no label. */
+    public static final int NO_LABEL = -1;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] names;
+    private double[] xs;
+    private double[] ys;
+    private int[]    labelCodes;
+    private int      size;
+
+    private int[] nameSlots; // index + 1 of the instance hashed to each slot, 0 when the slot is free
+
+    private List<String>         labelDictionary;
+    private Map<String, Integer> labelCodesByName;
+    private int[]                labelSizes;
+
+    /** Creates an empty dataset. */
+    public ColumnarDataSet() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates an empty dataset with room for the given number of instances.
+     *
+     * @param capacity the number of instances to allocate the columns for
+     */
+    public ColumnarDataSet(int capacity) {
+        capacity = Math.max(capacity, 1);
+        names = new String[capacity];
+        xs = new double[capacity];
+        ys = new double[capacity];
+        labelCodes = new int[capacity];
+        nameSlots = new int[slotCountFor(capacity)];
+        labelDictionary = new ArrayList<>();
+        labelCodesByName = new HashMap<>();
+        labelSizes = new int[4];
+    }
+
+    /**
+     * Creates a dataset from columns that were built elsewhere, such as a binary snapshot. The arrays are used as they
+     * are, and must all have one entry per instance.
+     *
+     * @param names      the instance names
+     * @param xs         the x coordinates
+     * @param ys         the y coordinates
+     * @param labelCodes the label codes, indexing into <code>labels</code> or {@link #NO_LABEL}
+     * @param labels     the label dictionary
+     * @return the dataset holding the columns
+     * @throws IllegalArgumentException if the columns differ in length, a label code is out of range, or a name
+     *                                  does not start with <code>@</code> or appears twice, so that only instances a
+     *                                  <code>.tsd</code> file could hold are accepted
+     */
+    public static ColumnarDataSet of(String[] names, double[] xs, double[] ys, int[] labelCodes, List<String> labels) {
+        int count = names.length;
+        if (xs.length != count || ys.length != count || labelCodes.length != count)
+            throw new IllegalArgumentException("Columns must all have one entry per instance");
+        ColumnarDataSet columns = new ColumnarDataSet(0);
+        columns.names = names;
+        columns.xs = xs;
+        columns.ys = ys;
+        columns.labelCodes = labelCodes;
+        columns.nameSlots = new int[slotCountFor(count)];
+        for (String label : labels)
+            columns.labelCodeOf(label);
+        for (int i = 0; i < count; i++) {
+            if (labelCodes[i] < NO_LABEL || labelCodes[i] >= columns.labelDictionary.size())
+                throw new IllegalArgumentException("Invalid label code " + labelCodes[i] + " for " + names[i]);
+            if (names[i] == null || names[i].isEmpty() || names[i].charAt(0) != TSDTokenizer.NAME_PREFIX)
+                throw new IllegalArgumentException("Invalid name '" + names[i] + "'. All data instance names must start with the @ character");
+            if (columns.indexOf(names[i]) >= 0)
+                throw new IllegalArgumentException("There is a duplicate entry of " + names[i]);
+            columns.insertSlot(i);
+            columns.size++;
+            if (labelCodes[i] != NO_LABEL)
+                columns.labelSizes[labelCodes[i]]++;
+        }
+        return columns;
+    }
+
+    public int size() { return size; }
+
+    public String getName(int index) { return names[index]; }
+
+    public double getX(int index) { return xs[index]; }
+
+    public double getY(int index) { return ys[index]; }
+
+    public int getLabelCode(int index) { return labelCodes[index]; }
+
+    public String getLabel(int index) { return labelOf(labelCodes[index]); }
+
+    /** @return the x column; only the first {@link #size()} entries are instances */
+    public double[] getXs() { return xs; }
+
+    /** @return the y column; only the first {@link #size()} entries are instances */
+    public double[] getYs() { return ys; }
+
+    /** @return the label code column; only the first {@link #size()} entries are instances */
+    public int[] getLabelCodes() { return labelCodes; }
+
+    /** @return the labels in the dictionary, indexed by their codes */
+    public List<String> getLabelDictionary() { return Collections.unmodifiableList(labelDictionary); }
+
+    /** @return the number of instances carrying the label with the given code */
+    public int getLabelSize(int labelCode) { return labelSizes[labelCode]; }
+
+    public String labelOf(int labelCode) {
+        return labelCode == NO_LABEL ? null : labelDictionary.get(labelCode);
+    }
+
+    /**
+     * Gives the code of a label, adding the label to the dictionary if this is the first time it is seen.
+     *
+     * @param label the label, or <code>null</code> for no label
+     * @return the code of the label
+     */
+    public int labelCodeOf(String label) {
+        if (label == null)
+            return NO_LABEL;
+        Integer code = labelCodesByName.get(label);
+        if (code == null) {
+            code = labelDictionary.size();
+            labelDictionary.add(label);
+            labelCodesByName.put(label, code);
+            if (code == labelSizes.length)
+                labelSizes = Arrays.copyOf(labelSizes, 2 * labelSizes.length);
+        }
+        return code;
+    }
+
+    /**
+     * @param name the name of an instance
+     * @return the index of the named instance, or -1 if there is no such instance
+     */
+    public int indexOf(String name) {
+        int mask = nameSlots.length - 1;
+        for (int slot = hash(name) & mask; nameSlots[slot] != 0; slot = (slot + 1) & mask) {
+            int index = nameSlots[slot] - 1;
+            if (names[index].equals(name))
+                return index;
+        }
+        return -1;
+    }
+
+    /**
+     * Appends an instance. The caller is responsible for the name not being in the dataset already.
+     *
+     * @return the index of the new instance
+     */
+    public int add(String name, String label, double x, double y) {
+        if (size == names.length)
+            grow();
+        int index = size++;
+        names[index] = name;
+        xs[index] = x;
+        ys[index] = y;
+        labelCodes[index] = NO_LABEL;
+        setLabelCode(index, labelCodeOf(label));
+        insertSlot(index);
+        return index;
+    }
+
+    /**
+     * Removes an instance by moving the last instance into its place, so the index of the last instance changes to
+     * the given one.
+     *
+     * @param index the index of the instance to remove
+     */
+    public void remove(int index) {
+        setLabelCode(index, NO_LABEL);
+        deleteSlot(slotOf(index));
+        int last = --size;
+        if (index != last) {
+            nameSlots[slotOf(last)] = index + 1;
+            names[index] = names[last];
+            xs[index] = xs[last];
+            ys[index] = ys[last];
+            labelCodes[index] = labelCodes[last];
+        }
+        names[last] = null;
+    }
+
+    public void setLabelCode(int index, int labelCode) {
+        if (labelCodes[index] != NO_LABEL)
+            labelSizes[labelCodes[index]]--;
+        labelCodes[index] = labelCode;
+        if (labelCode != NO_LABEL)
+            labelSizes[labelCode]++;
+    }
+
+    public void setLabel(int index, String label) { setLabelCode(index, labelCodeOf(label)); }
+
+    public void setLocation(int index, double x, double y) {
+        xs[index] = x;
+        ys[index] = y;
+    }
+
+    /** Removes every instance and label. */
+    public void clear() {
+        Arrays.fill(names, 0, size, null);
+        Arrays.fill(nameSlots, 0);
+        size = 0;
+        labelDictionary.clear();
+        labelCodesByName.clear();
+        Arrays.fill(labelSizes, 0);
+    }
+
+    /** @return an independent copy of this dataset, sized to its instances */
+    public ColumnarDataSet copy() {
+        ColumnarDataSet copy = new ColumnarDataSet(size);
+        System.arraycopy(names, 0, copy.names, 0, size);
+        System.arraycopy(xs, 0, copy.xs, 0, size);
+        System.arraycopy(ys, 0, copy.ys, 0, size);
+        System.arraycopy(labelCodes, 0, copy.labelCodes, 0, size);
+        copy.size = size;
+        for (int i = 0; i < size; i++)
+            copy.insertSlot(i);
+        for (String label : labelDictionary)
+            copy.labelCodeOf(label);
+        copy.labelSizes = Arrays.copyOf(labelSizes, labelSizes.length);
+        return copy;
+    }
+
+    /** @return a name-to-label map backed by this dataset */
+    public Map<String, String> labelView() {
+        return new ColumnView<String>() {
+            @Override
+            String valueAt(int index) { return getLabel(index); }
+
+            @Override
+            void setValueAt(int index, String label) { setLabel(index, label); }
+        };
+    }
+
+    /** @return a name-to-location map backed by this dataset */
+    public Map<String, Point2D> locationView() {
+        return new ColumnView<Point2D>() {
+            @Override
+            Point2D valueAt(int index) { return new Point2D(xs[index], ys[index]); }
+
+            @Override
+            void setValueAt(int index, Point2D location) { setLocation(index, location.getX(), location.getY()); }
+        };
+    }
+
+    /**
+     * A map from instance names to one column of the dataset. A name stands for a whole instance, so removing a name,
+     * through the map, its key set or an iterator, removes the instance from every column, and clearing the map
+     * clears the dataset. Adding a name is refused, since the map only holds one of the values a new instance needs;
+     * instances are added through {@link #add} or {@link DataSet#addInstance(String)}.
+     */
+    private abstract class ColumnView<V> extends AbstractMap<String, V> {
+
+        abstract V valueAt(int index);
+
+        abstract void setValueAt(int index, V value);
+
+        @Override
+        public int size() { return size; }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && indexOf((String) key) >= 0;
+        }
+
+        @Override
+        public V get(Object key) {
+            int index = key instanceof String ? indexOf((String) key) : -1;
+            return index < 0 ? null : valueAt(index);
+        }
+
+        /** @throws UnsupportedOperationException if the name is not in the dataset */
+        @Override
+        public V put(String key, V value) {
+            int index = indexOf(key);
+            if (index < 0)
+                throw new UnsupportedOperationException(key);
+            V previous = valueAt(index);
+            setValueAt(index, value);
+            return previous;
+        }
+
+        @Override
+        public V remove(Object key) {
+            int index = key instanceof String ? indexOf((String) key) : -1;
+            if (index < 0)
+                return null;
+            V previous = valueAt(index);
+            ColumnarDataSet.this.remove(index);
+            return previous;
+        }
+
+        @Override
+        public void clear() { ColumnarDataSet.this.clear(); }
+
+        @Override
+        public Set<Entry<String, V>> entrySet() {
+            return new AbstractSet<Entry<String, V>>() {
+                @Override
+                public int size() { return size; }
+
+                @Override
+                public Iterator<Entry<String, V>> iterator() {
+                    return new Iterator<Entry<String, V>>() {
+                        private int next = 0;
+                        private int last = -1;
+
+                        @Override
+                        public boolean hasNext() { return next < size; }
+
+                        @Override
+                        public Entry<String, V> next() {
+                            if (next >= size)
+                                throw new NoSuchElementException();
+                            int index = last = next++;
+                            return new SimpleEntry<String, V>(names[index], valueAt(index)) {
+                                @Override
+                                public V setValue(V value) {
+                                    setValueAt(index, value);
+                                    return super.setValue(value);
+                                }
+                            };
+                        }
+
+                        /** The last instance moves into the place of the removed one, so it is the next to visit. */
+                        @Override
+                        public void remove() {
+                            if (last < 0)
+                                throw new IllegalStateException();
+                            ColumnarDataSet.this.remove(last);
+                            next = last;
+                            last = -1;
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    private void grow() {
+        int capacity = names.length + (names.length >> 1) + 1;
+        names = Arrays.copyOf(names, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        labelCodes = Arrays.copyOf(labelCodes, capacity);
+        if (nameSlots.length < slotCountFor(capacity)) {
+            nameSlots = new int[slotCountFor(capacity)];
+            for (int i = 0; i < size; i++)
+                insertSlot(i);
+        }
+    }
+
+    private void insertSlot(int index) {
+        int mask = nameSlots.length - 1;
+        int slot = hash(names[index]) & mask;
+        while (nameSlots[slot] != 0)
+            slot = (slot + 1) & mask;
+        nameSlots[slot] = index + 1;
+    }
+
+    private int slotOf(int index) {
+        int mask = nameSlots.length - 1;
+        int slot = hash(names[index]) & mask;
+        while (nameSlots[slot] != index + 1)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /**
+     * Empties a slot of the name table, shifting back every later entry of its probe run that could no longer be
+     * reached from its home slot across the gap.
+     */
+    private void deleteSlot(int slot) {
+        int mask = nameSlots.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; nameSlots[next] != 0; next = (next + 1) & mask) {
+            int home = hash(names[nameSlots[next] - 1]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                nameSlots[hole] = nameSlots[next];
+                hole = next;
+            }
+        }
+        nameSlots[hole] = 0;
+    }
+
+    private static int slotCountFor(int capacity) {
+        return Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1) << 1;
+    }
+
+    private static int hash(String name) {
+        int h = name.hashCode();
+        return h ^ (h >>> 16);
+    }
+}
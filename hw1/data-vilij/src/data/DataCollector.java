@@ -1,24 +1,19 @@
 package data;
 
-public class DataCollector {
-    private DataSet dataSet;
-    private boolean empty = true;
+/**
+ * Hands the label changes of a clusterer to the thread showing them. A <code>null</code> delta marks the end of the run.
+ * When only the latest update is kept, the deltas not yet taken are merged, so no change is ever lost.
+ */
+public class DataCollector extends SnapshotChannel<LabelDelta> {
 
-    synchronized DataSet take(){
-        while(empty) {
-            try { wait(); } catch (InterruptedException ignored) { }
-        }
-        empty = true;
-        notifyAll();
-        return dataSet;
+    public DataCollector(){
+        this(false);
     }
 
-    public synchronized void put(DataSet dataSet){
-        while(!empty){
-            try { wait(); } catch (InterruptedException ignored) { }
-        }
-        empty = false;
-        this.dataSet = dataSet;
-        notifyAll();
+    /**
+     * @param latestOnly whether deltas not yet taken are merged into one instead of every one being shown
+     */
+    public DataCollector(boolean latestOnly){
+        super(DEFAULT_CAPACITY, latestOnly, LabelDelta::merge);
     }
 }
@@ -1,55 +1,78 @@
 package data;
 
-import actions.AppActions;
 import dataprocessors.AppData;
+import execution.StepController;
 import javafx.application.Platform;
-import javafx.concurrent.Task;
 import ui.AppUI;
 import vilij.templates.ApplicationTemplate;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
 public class DataRunner implements Runnable{
     private DataCollector collector;
+    private ColumnarDataSet view;
     private ApplicationTemplate applicationTemplate;
-    private boolean continuous;
-    public DataRunner(DataCollector collector, ApplicationTemplate applicationTemplate, boolean continuous){
+    private StepController stepController;
+    private long frameNanos;
+
+    /**
+     * @param view           a copy of the dataset of the run taken before it started, which only this runner changes
+     * @param stepController decides whether the run steps or runs, and whether its updates are shown
+     * @param frameRate      the number of frames shown per second while the run is running
+     */
+    public DataRunner(DataCollector collector, ColumnarDataSet view, ApplicationTemplate applicationTemplate, StepController stepController, int frameRate){
         this.collector = collector;
+        this.view = view;
         this.applicationTemplate = applicationTemplate;
-        this.continuous = continuous;
+        this.stepController = stepController;
+        this.frameNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, frameRate);
     }
 
     @Override
     public void run() {
         AppUI appUI = (AppUI)applicationTemplate.getUIComponent();
         AppData appData = (AppData)applicationTemplate.getDataComponent();
-        for(DataSet dataSet = collector.take(); dataSet != null; dataSet = collector.take()){
-            DataSet finalDataSet = dataSet;
-            Task<Void> iterationTask = new Task<Void>() {
-                @Override
-                protected Void call() {
-                    Platform.runLater(() -> {
-                        if(continuous) {
-                            appUI.hideRunButton();
-                            appUI.enableScreenshotButton(false);
-                        }
-                        appData.processDataSet(finalDataSet);
-                    });
-                    return null;
+        LabelDelta skipped = null; // the updates not shown while running to the end
+        try {
+            for(LabelDelta delta = collector.take(); delta != null; delta = collector.take()){
+                if(skipped != null)
+                    delta = LabelDelta.merge(skipped, delta);
+                skipped = null;
+                if(stepController.isSkipping()){
+                    skipped = delta;
+                    continue;
                 }
-            };
-            if(continuous){
-                new Thread(iterationTask).start();
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
+                long frameStart = System.nanoTime();
+                boolean running = stepController.isRunning();
+                LabelDelta finalDelta = delta;
+                FutureTask<Void> frame = new FutureTask<>(() -> {
+                    if(running) {
+                        appUI.hideRunButton();
+                        appUI.enableScreenshotButton(false);
+                    }
+                    appData.processLabels(view, finalDelta);
+                }, null);
+                Platform.runLater(frame);
+                if(running){
+                    try {
+                        frame.get();
+                    } catch (ExecutionException e) {
+                        e.printStackTrace();
+                    }
+                    TimeUnit.NANOSECONDS.sleep(frameNanos - (System.nanoTime() - frameStart));
                 }
+                else if(!stepController.awaitStep())
+                    break;
             }
-            else{
-                new Thread(iterationTask).start();
-                appUI.setAlgorithmPaused(true);
-                appUI.changeRunButton(1);
-                ((AppActions)applicationTemplate.getActionComponent()).waitForUser();
-            }
+        } catch (InterruptedException e) {
+            collector.cancel();
+            Thread.currentThread().interrupt();
+        }
+        if(skipped != null && !collector.isCancelled()){
+            LabelDelta last = skipped;
+            Platform.runLater(() -> appData.processLabels(view, last));
         }
         Platform.runLater(appUI::finishAlgorithm);
     }
@@ -2,7 +2,6 @@ package data;
 
 import javafx.geometry.Point2D;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.NoSuchElementException;
 
@@ -15,6 +14,11 @@ import java.util.NoSuchElementException;
  * objects representing the name-to-label map and the name-to-location (i.e.,
  * the x,y values) map. These two are the {@link DataSet#labels} and
  * {@link DataSet#locations} maps in this class.
+ * <p>
+ * Both maps are views over a {@link ColumnarDataSet}, which holds the
+ * instances in primitive arrays. Code that needs to go over every instance
+ * quickly can work on {@link #getColumns()} directly, and code that looks
+ * for instances near a location can query {@link #getSpatialIndex()}.
  *
  * @author Ritwik Banerjee
  */
@@ -29,30 +33,47 @@ public class DataSet {
         }
     }
 
-    private static String nameFormatCheck(String name) throws InvalidDataNameException {
-        if (!name.startsWith("@"))
-            throw new InvalidDataNameException(name);
-        return name;
-    }
-
-    private static Point2D locationOf(String locationString) {
-        String[] coordinateStrings = locationString.trim().split(",");
-        return new Point2D(Double.parseDouble(coordinateStrings[0]), Double.parseDouble(coordinateStrings[1]));
-    }
+    private static final String INVALID_LINE_MSG = "Invalid data line '%s'.";
 
+    private ColumnarDataSet      columns;
     private Map<String, String>  labels;
     private Map<String, Point2D> locations;
+    private TSDTokenizer         tokenizer;
+    private KDTree               spatialIndex;
 
     /** Creates an empty dataset. */
     public DataSet() {
-        labels = new HashMap<>();
-        locations = new HashMap<>();
+        this(new ColumnarDataSet());
+    }
+
+    /**
+     * Creates a dataset backed by the given columns.
+     *
+     * @param columns the columns holding the instances of this dataset
+     */
+    public DataSet(ColumnarDataSet columns) {
+        this.columns = columns;
+        labels = columns.labelView();
+        locations = columns.locationView();
+        tokenizer = new TSDTokenizer();
     }
 
+    public ColumnarDataSet getColumns()        { return columns; }
+
     public Map<String, String> getLabels()     { return labels; }
 
     public Map<String, Point2D> getLocations() { return locations; }
 
+    /**
+     * @return a tree over the locations of the instances, with their indices in {@link #getColumns()} as ids, built
+     *         on first use; it does not follow locations changed through the maps afterwards
+     */
+    public KDTree getSpatialIndex() {
+        if (spatialIndex == null)
+            spatialIndex = new KDTree(columns);
+        return spatialIndex;
+    }
+
     public void updateLabel(String instanceName, String newlabel) {
         if (labels.get(instanceName) == null)
             throw new NoSuchElementException();
@@ -60,8 +81,19 @@ public class DataSet {
     }
 
     public void addInstance(String tsdLine) throws InvalidDataNameException {
-        String[] arr = tsdLine.split("\t");
-        labels.put(nameFormatCheck(arr[0]), arr[1]);
-        locations.put(arr[0], locationOf(arr[2]));
+        int code = tokenizer.tokenize(tsdLine);
+        if (code == TSDTokenizer.INVALID_NAME)
+            throw new InvalidDataNameException(tokenizer.name());
+        if (code != TSDTokenizer.OK)
+            throw new IllegalArgumentException(String.format(INVALID_LINE_MSG, tsdLine));
+        String name  = tokenizer.name();
+        int    index = columns.indexOf(name);
+        spatialIndex = null;
+        if (index < 0) {
+            columns.add(name, tokenizer.label(), tokenizer.x(), tokenizer.y());
+        } else {
+            columns.setLabel(index, tokenizer.label());
+            columns.setLocation(index, tokenizer.x(), tokenizer.y());
+        }
     }
 }
@@ -0,0 +1,326 @@
+package data;
+
+import java.util.Arrays;
+
+/**
+ * A two-dimensional k-d tree over the locations of a dataset, answering nearest-neighbour, k-nearest-neighbour and
+ * rectangular range queries without scanning every instance. Instances are identified by an integer id, which for a
+ * tree built from a {@link ColumnarDataSet} is the index of the instance.
+ * <p>
+ * The tree is stored implicitly: its points are kept in arrays ordered so that the median of every range splits it,
+ * alternately along x and y. Edits do not restructure it. A removed point is only marked as such, and an inserted one
+ * is kept in a small list that queries scan as well. Once the marked and listed points make up a quarter of the tree,
+ * it is rebuilt from its live points.
+ */
+public final class KDTree {
+
+    private static final int MIN_REBUILD = 64;
+
+    private double[]  xs;
+    private double[]  ys;
+    private int[]     ids;
+    private boolean[] removed;
+    private int       size;
+    private int       removedCount;
+    private int[]     slotsById;     // the position of every id in the tree arrays, or -1 if it is not in them
+
+    private double[]  pendingXs;
+    private double[]  pendingYs;
+    private int[]     pendingIds;
+    private int       pendingCount;
+
+    /** Builds a tree over every instance of a dataset, with the instance indices as ids. */
+    public KDTree(ColumnarDataSet columns) {
+        int count = columns.size();
+        xs = Arrays.copyOf(columns.getXs(), count);
+        ys = Arrays.copyOf(columns.getYs(), count);
+        ids = new int[count];
+        for (int i = 0; i < count; i++)
+            ids[i] = i;
+        pendingXs = new double[16];
+        pendingYs = new double[16];
+        pendingIds = new int[16];
+        build(count);
+    }
+
+    /** @return the number of points in the tree */
+    public int size() { return size - removedCount + pendingCount; }
+
+    /**
+     * Adds a point. The caller is responsible for the id not being in the tree already.
+     */
+    public void insert(int id, double x, double y) {
+        if (pendingCount == pendingIds.length) {
+            pendingXs = Arrays.copyOf(pendingXs, 2 * pendingCount);
+            pendingYs = Arrays.copyOf(pendingYs, 2 * pendingCount);
+            pendingIds = Arrays.copyOf(pendingIds, 2 * pendingCount);
+        }
+        pendingXs[pendingCount] = x;
+        pendingYs[pendingCount] = y;
+        pendingIds[pendingCount++] = id;
+        rebuildIfStale();
+    }
+
+    /**
+     * Removes the point with the given id, if there is one.
+     */
+    public void remove(int id) {
+        if (id < slotsById.length && slotsById[id] >= 0) {
+            removed[slotsById[id]] = true;
+            slotsById[id] = -1;
+            removedCount++;
+            rebuildIfStale();
+            return;
+        }
+        for (int p = 0; p < pendingCount; p++) {
+            if (pendingIds[p] == id) {
+                pendingCount--;
+                pendingXs[p] = pendingXs[pendingCount];
+                pendingYs[p] = pendingYs[pendingCount];
+                pendingIds[p] = pendingIds[pendingCount];
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the id of the point nearest to the given location, or -1 if the tree is empty
+     */
+    public int nearest(double x, double y) {
+        int[] nearest = nearest(x, y, 1);
+        return nearest.length == 0 ? -1 : nearest[0];
+    }
+
+    /**
+     * @return the ids of the <code>k</code> points nearest to the given location, nearest first
+     */
+    public int[] nearest(double x, double y, int k) {
+        Neighbours neighbours = new Neighbours(Math.min(k, size()));
+        if (neighbours.capacity == 0)
+            return new int[0];
+        searchNearest(0, size, 0, x, y, neighbours);
+        for (int p = 0; p < pendingCount; p++)
+            neighbours.offer(pendingIds[p], distance(x, y, pendingXs[p], pendingYs[p]));
+        return neighbours.sortedIds();
+    }
+
+    /**
+     * @return the ids of the points inside the given rectangle, its edges included, in no particular order
+     */
+    public int[] range(double minX, double minY, double maxX, double maxY) {
+        IntList found = new IntList();
+        searchRange(0, size, 0, minX, minY, maxX, maxY, found);
+        for (int p = 0; p < pendingCount; p++) {
+            if (pendingXs[p] >= minX && pendingXs[p] <= maxX && pendingYs[p] >= minY && pendingYs[p] <= maxY)
+                found.add(pendingIds[p]);
+        }
+        return found.toArray();
+    }
+
+    private void searchNearest(int from, int to, int depth, double x, double y, Neighbours neighbours) {
+        if (from >= to)
+            return;
+        int middle = (from + to) >>> 1;
+        if (!removed[middle])
+            neighbours.offer(ids[middle], distance(x, y, xs[middle], ys[middle]));
+        double offset = depth % 2 == 0 ? x - xs[middle] : y - ys[middle];
+        if (offset < 0) {
+            searchNearest(from, middle, depth + 1, x, y, neighbours);
+            if (offset * offset < neighbours.worst())
+                searchNearest(middle + 1, to, depth + 1, x, y, neighbours);
+        } else {
+            searchNearest(middle + 1, to, depth + 1, x, y, neighbours);
+            if (offset * offset < neighbours.worst())
+                searchNearest(from, middle, depth + 1, x, y, neighbours);
+        }
+    }
+
+    private void searchRange(int from, int to, int depth, double minX, double minY, double maxX, double maxY,
+                             IntList found) {
+        if (from >= to)
+            return;
+        int    middle = (from + to) >>> 1;
+        double x      = xs[middle];
+        double y      = ys[middle];
+        if (!removed[middle] && x >= minX && x <= maxX && y >= minY && y <= maxY)
+            found.add(ids[middle]);
+        double split = depth % 2 == 0 ? x : y;
+        if ((depth % 2 == 0 ? minX : minY) <= split)
+            searchRange(from, middle, depth + 1, minX, minY, maxX, maxY, found);
+        if ((depth % 2 == 0 ? maxX : maxY) >= split)
+            searchRange(middle + 1, to, depth + 1, minX, minY, maxX, maxY, found);
+    }
+
+    private void rebuildIfStale() {
+        if (removedCount + pendingCount < Math.max(MIN_REBUILD, size / 4))
+            return;
+        int live = size - removedCount + pendingCount;
+        double[] liveXs  = new double[live];
+        double[] liveYs  = new double[live];
+        int[]    liveIds = new int[live];
+        int      count   = 0;
+        for (int i = 0; i < size; i++) {
+            if (removed[i])
+                continue;
+            liveXs[count] = xs[i];
+            liveYs[count] = ys[i];
+            liveIds[count++] = ids[i];
+        }
+        System.arraycopy(pendingXs, 0, liveXs, count, pendingCount);
+        System.arraycopy(pendingYs, 0, liveYs, count, pendingCount);
+        System.arraycopy(pendingIds, 0, liveIds, count, pendingCount);
+        xs = liveXs;
+        ys = liveYs;
+        ids = liveIds;
+        pendingCount = 0;
+        build(live);
+    }
+
+    private void build(int count) {
+        size = count;
+        removed = new boolean[count];
+        removedCount = 0;
+        order(0, count, 0);
+        int maxId = -1;
+        for (int i = 0; i < count; i++)
+            maxId = Math.max(maxId, ids[i]);
+        slotsById = new int[maxId + 1];
+        Arrays.fill(slotsById, -1);
+        for (int i = 0; i < count; i++)
+            slotsById[ids[i]] = i;
+    }
+
+    /** Orders a range so that its middle point splits it along the axis of the depth, and then each half likewise. */
+    private void order(int from, int to, int depth) {
+        while (to - from > 1) {
+            int middle = (from + to) >>> 1;
+            select(from, to - 1, middle, depth % 2 == 0 ? xs : ys);
+            order(from, middle, depth + 1);
+            from = middle + 1;
+            depth++;
+        }
+    }
+
+    /** Moves the point of the given rank along an axis into place, with no greater point before it or smaller after. */
+    private void select(int left, int right, int rank, double[] axis) {
+        while (right > left) {
+            double pivot = axis[(left + right) >>> 1];
+            int    i     = left;
+            int    j     = right;
+            while (i <= j) {
+                while (axis[i] < pivot)
+                    i++;
+                while (axis[j] > pivot)
+                    j--;
+                if (i <= j)
+                    swap(i++, j--);
+            }
+            if (rank <= j)
+                right = j;
+            else if (rank >= i)
+                left = i;
+            else
+                return;
+        }
+    }
+
+    private void swap(int i, int j) {
+        double x = xs[i];
+        xs[i] = xs[j];
+        xs[j] = x;
+        double y = ys[i];
+        ys[i] = ys[j];
+        ys[j] = y;
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+    }
+
+    private static double distance(double x1, double y1, double x2, double y2) {
+        double dx = x1 - x2;
+        double dy = y1 - y2;
+        return dx * dx + dy * dy;
+    }
+
+    /** The nearest points found so far, kept as a max-heap on their squared distances. */
+    private static final class Neighbours {
+        private final int      capacity;
+        private final int[]    ids;
+        private final double[] distances;
+        private int            count;
+
+        Neighbours(int capacity) {
+            this.capacity = capacity;
+            this.ids = new int[capacity];
+            this.distances = new double[capacity];
+        }
+
+        double worst() { return count < capacity ? Double.POSITIVE_INFINITY : distances[0]; }
+
+        void offer(int id, double distance) {
+            if (count < capacity) {
+                int i = count++;
+                while (i > 0 && distances[(i - 1) / 2] < distance) {
+                    ids[i] = ids[(i - 1) / 2];
+                    distances[i] = distances[(i - 1) / 2];
+                    i = (i - 1) / 2;
+                }
+                ids[i] = id;
+                distances[i] = distance;
+            } else if (distance < distances[0]) {
+                int i = 0;
+                while (2 * i + 1 < count) {
+                    int child = 2 * i + 1;
+                    if (child + 1 < count && distances[child + 1] > distances[child])
+                        child++;
+                    if (distances[child] <= distance)
+                        break;
+                    ids[i] = ids[child];
+                    distances[i] = distances[child];
+                    i = child;
+                }
+                ids[i] = id;
+                distances[i] = distance;
+            }
+        }
+
+        int[] sortedIds() {
+            int[] sorted = new int[count];
+            for (int end = count - 1; end >= 0; end--) {
+                sorted[end] = ids[0];
+                int    lastId       = ids[end];
+                double lastDistance = distances[end];
+                count = end;
+                if (end > 0) {
+                    int i = 0;
+                    while (2 * i + 1 < count) {
+                        int child = 2 * i + 1;
+                        if (child + 1 < count && distances[child + 1] > distances[child])
+                            child++;
+                        if (distances[child] <= lastDistance)
+                            break;
+                        ids[i] = ids[child];
+                        distances[i] = distances[child];
+                        i = child;
+                    }
+                    ids[i] = lastId;
+                    distances[i] = lastDistance;
+                }
+            }
+            return sorted;
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int   count;
+
+        void add(int value) {
+            if (count == values.length)
+                values = Arrays.copyOf(values, 2 * count);
+            values[count++] = value;
+        }
+
+        int[] toArray() { return Arrays.copyOf(values, count); }
+    }
+}
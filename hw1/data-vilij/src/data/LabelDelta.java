@@ -0,0 +1,149 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The label changes a running algorithm made since its previous update, as the indices of the instances that changed
+ * and their new label codes, in increasing order of index. A delta never changes once made, so it can be handed to
+ * another thread as it is, and the thread showing the run keeps its own copy of the dataset up to date by applying
+ * every delta to it in turn.
+ * <p>
+ * Label codes only mean something together with the label dictionary they index, so every delta also carries the
+ * dictionary of the algorithm's dataset. Since a dictionary only ever grows, applying a delta adds the labels a copy
+ * does not know yet in the same order, and the codes of both stay the same.
+ */
+public final class LabelDelta {
+
+    private final int[]        indices;
+    private final int[]        codes;
+    private final List<String> labels;
+
+    private LabelDelta(int[] indices, int[] codes, List<String> labels) {
+        this.indices = indices;
+        this.codes = codes;
+        this.labels = labels;
+    }
+
+    /** @return the number of instances whose label changed */
+    public int size() { return indices.length; }
+
+    public int getIndex(int change) { return indices[change]; }
+
+    public int getCode(int change) { return codes[change]; }
+
+    /** @return the label dictionary the codes index, which cannot be modified */
+    public List<String> getLabels() { return labels; }
+
+    /**
+     * Relabels the changed instances of a copy of the dataset the delta was taken from.
+     *
+     * @param view a copy that every earlier delta of the run has been applied to
+     */
+    public void applyTo(ColumnarDataSet view) {
+        for (int code = view.getLabelDictionary().size(); code < labels.size(); code++)
+            view.labelCodeOf(labels.get(code));
+        for (int change = 0; change < indices.length; change++)
+            view.setLabelCode(indices[change], codes[change]);
+    }
+
+    /**
+     * Combines two deltas into one that has the effect of applying both in turn, for when the first was never shown.
+     *
+     * @param earlier the earlier delta
+     * @param later   the later delta, whose codes win where both changed the same instance
+     * @return the combined delta
+     */
+    public static LabelDelta merge(LabelDelta earlier, LabelDelta later) {
+        if (earlier.size() == 0)
+            return later;
+        int[] indices = new int[earlier.size() + later.size()];
+        int[] codes   = new int[indices.length];
+        int   e       = 0;
+        int   l       = 0;
+        int   size    = 0;
+        while (e < earlier.size() || l < later.size()) {
+            if (l == later.size() || e < earlier.size() && earlier.indices[e] < later.indices[l]) {
+                indices[size] = earlier.indices[e];
+                codes[size++] = earlier.codes[e++];
+            } else {
+                if (e < earlier.size() && earlier.indices[e] == later.indices[l])
+                    e++;
+                indices[size] = later.indices[l];
+                codes[size++] = later.codes[l++];
+            }
+        }
+        return new LabelDelta(Arrays.copyOf(indices, size), Arrays.copyOf(codes, size), later.labels);
+    }
+
+    /**
+     * Remembers the labels of a dataset as they were last published, and turns what an algorithm changed since into
+     * deltas. A tracker belongs to the thread running the algorithm.
+     */
+    public static final class Tracker {
+
+        private final ColumnarDataSet columns;
+        private final int[]           published;
+        private List<String>          labels = Collections.emptyList();
+
+        /**
+         * @param columns the dataset of the algorithm, whose labels as they are now are taken as already shown
+         */
+        public Tracker(ColumnarDataSet columns) {
+            this.columns = columns;
+            this.published = Arrays.copyOf(columns.getLabelCodes(), columns.size());
+        }
+
+        /** @return the labels changed since the previous delta, looking at every instance */
+        public LabelDelta changes() {
+            int[] codes   = columns.getLabelCodes();
+            int   changed = 0;
+            for (int i = 0; i < published.length; i++) {
+                if (codes[i] != published[i])
+                    changed++;
+            }
+            int[] indices = new int[changed];
+            changed = 0;
+            for (int i = 0; i < published.length; i++) {
+                if (codes[i] != published[i])
+                    indices[changed++] = i;
+            }
+            return publish(indices);
+        }
+
+        /**
+         * Finds the labels changed since the previous delta among the given instances only, for an algorithm that
+         * knows which instances it may have relabeled.
+         *
+         * @param candidates the indices of the instances that may have changed, in any order and possibly repeated
+         * @param count      the number of candidates to look at
+         * @return the labels changed among the candidates
+         */
+        public LabelDelta changes(int[] candidates, int count) {
+            int[] sorted = Arrays.copyOf(candidates, count);
+            Arrays.sort(sorted);
+            int[] codes   = columns.getLabelCodes();
+            int   changed = 0;
+            for (int c = 0; c < count; c++) {
+                int i = sorted[c];
+                if (codes[i] != published[i] && (changed == 0 || sorted[changed - 1] != i))
+                    sorted[changed++] = i;
+            }
+            return publish(Arrays.copyOf(sorted, changed));
+        }
+
+        private LabelDelta publish(int[] indices) {
+            int[] codes = new int[indices.length];
+            for (int change = 0; change < indices.length; change++) {
+                int i = indices[change];
+                codes[change] = published[i] = columns.getLabelCode(i);
+            }
+            List<String> dictionary = columns.getLabelDictionary();
+            if (labels.size() != dictionary.size())
+                labels = Collections.unmodifiableList(new ArrayList<>(dictionary));
+            return new LabelDelta(indices, codes, labels);
+        }
+    }
+}
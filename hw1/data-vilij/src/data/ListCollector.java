@@ -2,25 +2,19 @@ package data;
 
 import java.util.List;
 
-public class ListCollector {
-    private List<Integer> dataList;
-    private boolean empty = true;
+/**
+ * Hands the lines of a classifier to the thread showing them. A <code>null</code> line marks the end of the run.
+ */
+public class ListCollector extends SnapshotChannel<List<Double>> {
 
-    synchronized List<Integer> take(){
-        while(empty) {
-            try { wait(); } catch (InterruptedException ignored) { }
-        }
-        empty = true;
-        notifyAll();
-        return dataList;
+    public ListCollector(){
+        this(false);
     }
 
-    public synchronized void put(List<Integer> dataList){
-        while(!empty){
-            try { wait(); } catch (InterruptedException ignored) { }
-        }
-        empty = false;
-        this.dataList = dataList;
-        notifyAll();
+    /**
+     * @param latestOnly whether a line not yet taken is replaced by the next one instead of every one being shown
+     */
+    public ListCollector(boolean latestOnly){
+        super(latestOnly);
     }
 }
@@ -1,59 +1,74 @@
 package data;
 
-import actions.AppActions;
 import dataprocessors.AppData;
+import execution.StepController;
 import javafx.application.Platform;
-import javafx.concurrent.Task;
 import ui.AppUI;
 import vilij.templates.ApplicationTemplate;
 
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 
 public class ListRunner implements Runnable{
     private ListCollector collector;
     private ApplicationTemplate applicationTemplate;
-    private boolean continuous;
-    public ListRunner(ListCollector collector, ApplicationTemplate applicationTemplate, boolean continuous){
+    private StepController stepController;
+    private long frameNanos;
+
+    /**
+     * @param stepController decides whether the run steps or runs, and whether its updates are shown
+     * @param frameRate      the number of lines shown per second while the run is running
+     */
+    public ListRunner(ListCollector collector, ApplicationTemplate applicationTemplate, StepController stepController, int frameRate){
         this.collector = collector;
         this.applicationTemplate = applicationTemplate;
-        this.continuous = continuous;
+        this.stepController = stepController;
+        this.frameNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, frameRate);
     }
 
     @Override
     public void run() {
         AppUI appUI = (AppUI)applicationTemplate.getUIComponent();
-        AppActions appActions = (AppActions)applicationTemplate.getActionComponent();
         AppData appData = (AppData)applicationTemplate.getDataComponent();
-        for(List<Integer> dataList = collector.take(); dataList != null; dataList = collector.take()){
-            List<Integer> finalDataList = dataList;
-            Task<Void> iterationTask = new Task<Void>() {
-                @Override
-                protected Void call() {
-                    Platform.runLater(() -> {
-                        if(continuous) {
-                            appUI.hideRunButton();
-                            appUI.enableScreenshotButton(false);
-                        }
-                        appData.processList(finalDataList);
-                    });
-                    return null;
+        List<Double> skipped = null; // the last line not shown while running to the end
+        try {
+            for(List<Double> dataList = collector.take(); dataList != null; dataList = collector.take()){
+                skipped = null;
+                if(stepController.isSkipping()){
+                    skipped = dataList;
+                    continue;
                 }
-            };
-            if(continuous){
-                new Thread(iterationTask).start();
-                try {
-                    long SLEEPTIME = 1000;
-                    Thread.sleep(SLEEPTIME);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
+                long frameStart = System.nanoTime();
+                boolean running = stepController.isRunning();
+                List<Double> finalDataList = dataList;
+                FutureTask<Void> frame = new FutureTask<>(() -> {
+                    if(running) {
+                        appUI.hideRunButton();
+                        appUI.enableScreenshotButton(false);
+                    }
+                    appData.processList(finalDataList);
+                }, null);
+                Platform.runLater(frame);
+                if(running){
+                    try {
+                        frame.get();
+                    } catch (ExecutionException e) {
+                        e.printStackTrace();
+                    }
+                    TimeUnit.NANOSECONDS.sleep(frameNanos - (System.nanoTime() - frameStart));
                 }
+                else if(!stepController.awaitStep())
+                    break;
             }
-            else{
-                new Thread(iterationTask).start();
-                appUI.setAlgorithmPaused(true);
-                appUI.changeRunButton(1);
-                appActions.waitForUser();
-            }
+        } catch (InterruptedException e) {
+            collector.cancel();
+            Thread.currentThread().interrupt();
+        }
+        if(skipped != null && !collector.isCancelled()){
+            List<Double> last = skipped;
+            Platform.runLater(() -> appData.processList(last));
         }
         Platform.runLater(appUI::finishAlgorithm);
     }
@@ -0,0 +1,156 @@
+package data;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BinaryOperator;
+
+/**
+ * Hands the snapshots of a running algorithm to the thread showing them, without locks. One thread puts snapshots and
+ * one thread takes them.
+ * <p>
+ * By default every snapshot is handed over, in order, through a ring buffer: the producer only waits when the buffer
+ * is full, that is when the consumer is a whole buffer behind. A channel that keeps only the latest snapshot never
+ * makes the producer wait: each snapshot replaces the one not yet taken, or is combined with it when the snapshots are
+ * changes rather than whole states. Either way, closing the channel marks the end
+ * of the run, which the consumer sees once it has taken every snapshot still held. Cancelling the channel ends the run
+ * at once: the snapshots still held are dropped.
+ * <p>
+ * Waiting threads are parked, and each side unparks the other after every put or take. Both sides publish their own
+ * progress before looking at the other's, so a wake-up is never lost.
+ *
+ * @param <T> the type of the snapshots
+ */
+public class SnapshotChannel<T> {
+
+    /** The number of snapshots a channel handing over every snapshot holds unless another capacity is given. */
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private final boolean                 latestOnly;
+    private final BinaryOperator<T>       coalescer;
+    private final AtomicReference<T>      latest = new AtomicReference<>();
+    private final AtomicReferenceArray<T> slots;
+    private final int                     mask;
+    private final AtomicLong              head   = new AtomicLong(); // the next snapshot to take
+    private final AtomicLong              tail   = new AtomicLong(); // where the next snapshot goes
+    private volatile boolean              closed;
+    private volatile boolean              cancelled;
+    private volatile Thread               producer;
+    private volatile Thread               consumer;
+
+    /**
+     * @param capacity   the number of snapshots held before the producer waits, rounded up to a power of two
+     * @param latestOnly whether a snapshot not yet taken is replaced by the next one instead of holding up the producer
+     * @param coalescer  combines a snapshot not yet taken with the next one when only the latest is kept, or
+     *                   <code>null</code> to replace it; it may be called more than once per put, so it must not have
+     *                   side effects
+     */
+    public SnapshotChannel(int capacity, boolean latestOnly, BinaryOperator<T> coalescer) {
+        int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.latestOnly = latestOnly;
+        this.coalescer = coalescer;
+        this.slots = new AtomicReferenceArray<>(latestOnly ? 0 : size);
+        this.mask = size - 1;
+    }
+
+    public SnapshotChannel(int capacity, boolean latestOnly) {
+        this(capacity, latestOnly, null);
+    }
+
+    public SnapshotChannel(boolean latestOnly) {
+        this(DEFAULT_CAPACITY, latestOnly);
+    }
+
+    public boolean isLatestOnly() { return latestOnly; }
+
+    /**
+     * Hands over a snapshot, waiting while the buffer is full unless only the latest snapshot is kept. Putting
+     * <code>null</code> closes the channel, as the end of a run always has.
+     *
+     * @param snapshot the snapshot, or <code>null</code> to close the channel
+     * @return whether the snapshot was handed over; <code>false</code> if the channel was closed, or if the producer
+     *         was interrupted while waiting, in which case its interrupt status is kept
+     */
+    public boolean put(T snapshot) {
+        if (snapshot == null) {
+            close();
+            return true;
+        }
+        if (closed)
+            return false;
+        if (latestOnly && coalescer != null) {
+            latest.accumulateAndGet(snapshot, (held, next) -> held == null ? next : coalescer.apply(held, next));
+        } else if (latestOnly) {
+            latest.set(snapshot);
+        } else {
+            long position = tail.get();
+            producer = Thread.currentThread();
+            while (position - head.get() > mask) {
+                LockSupport.park(this);
+                if (Thread.currentThread().isInterrupted() || closed)
+                    return false;
+            }
+            slots.set((int) position & mask, snapshot);
+            tail.set(position + 1);
+        }
+        LockSupport.unpark(consumer);
+        return true;
+    }
+
+    /**
+     * @return the next snapshot, or <code>null</code> if there is none right now
+     */
+    public T poll() {
+        if (cancelled)
+            return null;
+        if (latestOnly)
+            return latest.getAndSet(null);
+        long position = head.get();
+        if (position == tail.get())
+            return null;
+        int slot     = (int) position & mask;
+        T   snapshot = slots.get(slot);
+        slots.set(slot, null);
+        head.set(position + 1);
+        LockSupport.unpark(producer);
+        return snapshot;
+    }
+
+    /**
+     * Waits for the next snapshot.
+     *
+     * @return the next snapshot, or <code>null</code> once the channel is closed and every snapshot has been taken
+     * @throws InterruptedException if the consumer is interrupted while waiting
+     */
+    public T take() throws InterruptedException {
+        consumer = Thread.currentThread();
+        for (;;) {
+            T snapshot = poll();
+            if (snapshot != null)
+                return snapshot;
+            if (closed)
+                return poll();
+            LockSupport.park(this);
+            if (Thread.interrupted())
+                throw new InterruptedException();
+        }
+    }
+
+    /** Marks the end of the run; snapshots still held can be taken, and later ones are refused. */
+    public void close() {
+        closed = true;
+        LockSupport.unpark(consumer);
+        LockSupport.unpark(producer);
+    }
+
+    /** Ends the run at once: the snapshots still held are dropped, and the consumer sees the end of the run next. */
+    public void cancel() {
+        cancelled = true;
+        close();
+    }
+
+    public boolean isClosed() { return closed; }
+
+    public boolean isCancelled() { return cancelled; }
+}
@@ -0,0 +1,215 @@
+package data;
+
+/**
+ * Splits a line of <code>.tsd</code> data into its name, label and coordinate fields, and parses the two coordinates,
+ * without creating any intermediate strings or arrays. The tokenizer only records where each field starts and ends in
+ * the line; callers ask for {@link #name()} or {@link #label()} when they want to keep a field.
+ * <p>
+ * Malformed lines are reported through the code returned by {@link #tokenize(CharSequence)} rather than through
+ * exceptions. The accepted format is the one that splitting on tabs and commas has always accepted: exactly three
+ * tab-separated fields once trailing tabs are ignored, a name starting with <code>@</code>, and at least two
+ * comma-separated numbers in the last field, of which only the first two are used. A tokenizer can be reused for any
+ * number of lines, but not by two threads at once.
+ */
+public final class TSDTokenizer {
+
+    /** The line is valid. */
+    public static final int OK             = 0;
+    /** The line does not have exactly three tab-separated fields. */
+    public static final int MALFORMED_LINE = 1;
+    /** The name does not start with the <code>@</code> character. */
+    public static final int INVALID_NAME   = 2;
+    /** The last field does not hold two comma-separated numbers. */
+    public static final int INVALID_PAIR   = 3;
+
+    private static final char   TAB          = '\t';
+    private static final char   COMMA        = ',';
+    static final char           NAME_PREFIX  = '@';
+    private static final long   MAX_EXACT    = 1L << 53;
+    private static final int    MAX_DIGITS   = 18;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private CharSequence line;
+    private int          nameEnd;
+    private int          labelStart;
+    private int          labelEnd;
+    private int          pairStart;
+    private int          pairEnd;
+    private double       x;
+    private double       y;
+    private boolean      parsed; // set by parseNumber when the characters formed a number
+
+    /**
+     * Finds the fields of a line and parses its coordinates.
+     *
+     * @param line one line of <code>.tsd</code> data, without its line terminator
+     * @return {@link #OK}, or the code of the first problem found in the line
+     */
+    public int tokenize(CharSequence line) {
+        this.line = line;
+        int end = line.length();
+        while (end > 0 && line.charAt(end - 1) == TAB)
+            end--;
+        int firstTab  = indexOf(line, TAB, 0, end);
+        int secondTab = firstTab < 0 ? -1 : indexOf(line, TAB, firstTab + 1, end);
+        if (secondTab < 0 || indexOf(line, TAB, secondTab + 1, end) >= 0)
+            return MALFORMED_LINE;
+        nameEnd = firstTab;
+        labelStart = firstTab + 1;
+        labelEnd = secondTab;
+        pairStart = secondTab + 1;
+        pairEnd = end;
+        if (nameEnd == 0 || line.charAt(0) != NAME_PREFIX)
+            return INVALID_NAME;
+        return parsePair(line, pairStart, pairEnd) ? OK : INVALID_PAIR;
+    }
+
+    /**
+     * Parses two comma-separated numbers from part of a sequence of characters, making them available through
+     * {@link #x()} and {@link #y()}. Anything after a second comma is ignored.
+     *
+     * @param text  the characters holding the pair
+     * @param start the index of the first character of the pair
+     * @param end   the index just past the last character of the pair
+     * @return <code>true</code> if both numbers could be parsed
+     */
+    public boolean parsePair(CharSequence text, int start, int end) {
+        int comma = indexOf(text, COMMA, start, end);
+        if (comma < 0)
+            return false;
+        int yEnd = indexOf(text, COMMA, comma + 1, end);
+        if (yEnd < 0)
+            yEnd = end;
+        x = parseNumber(text, start, comma);
+        if (!parsed)
+            return false;
+        y = parseNumber(text, comma + 1, yEnd);
+        return parsed;
+    }
+
+    public double x() { return x; }
+
+    public double y() { return y; }
+
+    public String name() { return line.subSequence(0, nameEnd).toString(); }
+
+    public String label() { return line.subSequence(labelStart, labelEnd).toString(); }
+
+    /** @return the last field of the line, as it was written */
+    public String pair() { return line.subSequence(pairStart, pairEnd).toString(); }
+
+    /**
+     * Parses a decimal number such as <code>-12.5e3</code> directly from the characters. When the digits fit in 53 bits
+     * and the power of ten is exactly representable, a single multiplication or division gives the correctly rounded
+     * result. Anything else, from very long mantissas to <code>NaN</code> and hexadecimal notation, falls back to
+     * {@link Double#parseDouble(String)} so that exactly the same numbers are accepted as before.
+     */
+    private double parseNumber(CharSequence text, int start, int end) {
+        parsed = false;
+        while (start < end && text.charAt(start) <= ' ')
+            start++;
+        while (end > start && text.charAt(end - 1) <= ' ')
+            end--;
+        if (start == end)
+            return 0;
+        int     i        = start;
+        boolean negative = false;
+        char    c        = text.charAt(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+        long mantissa  = 0;
+        int  digits    = 0;
+        int  exponent  = 0;
+        int  seen      = 0;
+        boolean point  = false;
+        for (; i < end; i++) {
+            c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                seen++;
+                if (mantissa == 0 && c == '0') {
+                    if (point)
+                        exponent--;
+                    continue;
+                }
+                if (++digits > MAX_DIGITS)
+                    return fallback(text, start, end);
+                mantissa = 10 * mantissa + (c - '0');
+                if (point)
+                    exponent--;
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (i < end) {
+            c = text.charAt(i);
+            if (seen == 0 || (c != 'e' && c != 'E'))
+                return mayContinue(c, seen) ? fallback(text, start, end) : 0;
+            int     written  = 0;
+            int     value    = 0;
+            boolean negExp   = false;
+            i++;
+            if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+'))
+                negExp = text.charAt(i++) == '-';
+            for (; i < end; i++) {
+                c = text.charAt(i);
+                if (c < '0' || c > '9')
+                    return isSuffix(c) ? fallback(text, start, end) : 0;
+                if (value < 10000)
+                    value = 10 * value + (c - '0');
+                written++;
+            }
+            if (written == 0)
+                return 0;
+            exponent += negExp ? -value : value;
+        }
+        if (seen == 0)
+            return 0;
+        if (mantissa >= MAX_EXACT || exponent < -22 || exponent > 22) {
+            if (mantissa != 0)
+                return fallback(text, start, end);
+        }
+        parsed = true;
+        double value = mantissa == 0 ? 0 : exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Whether a character that stopped the decimal scan can still belong to a number that
+     * {@link Double#parseDouble(String)} accepts: <code>NaN</code> and <code>Infinity</code> before any digit, and a
+     * type suffix or the <code>x</code> of hexadecimal notation after one.
+     */
+    private static boolean mayContinue(char c, int digitsSeen) {
+        if (digitsSeen == 0)
+            return c == 'N' || c == 'I';
+        return isSuffix(c) || c == 'x' || c == 'X';
+    }
+
+    private static boolean isSuffix(char c) {
+        return c == 'd' || c == 'D' || c == 'f' || c == 'F';
+    }
+
+    private double fallback(CharSequence text, int start, int end) {
+        try {
+            double value = Double.parseDouble(text.subSequence(start, end).toString());
+            parsed = true;
+            return value;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static int indexOf(CharSequence text, char c, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (text.charAt(i) == c)
+                return i;
+        }
+        return -1;
+    }
+}
@@ -1,23 +1,20 @@
 package dataprocessors;
 
 import actions.AppActions;
+import data.ColumnarDataSet;
 import data.DataSet;
+import data.LabelDelta;
 import javafx.scene.chart.LineChart;
 import javafx.scene.control.ComboBox;
-import javafx.scene.control.TextArea;
 import ui.AppUI;
 import vilij.components.DataComponent;
 import vilij.components.Dialog;
 import vilij.propertymanager.PropertyManager;
 import vilij.templates.ApplicationTemplate;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static settings.AppPropertyTypes.*;
@@ -36,8 +33,7 @@ public class AppData implements DataComponent{
     private ApplicationTemplate applicationTemplate;
     private PropertyManager manager;
 
-    private String loadedData;
-
+    private String[] processedLines; // the text area lines the processor holds, or null if it holds none
     private int instances;
     private int labels;
     private String labelNames;
@@ -49,101 +45,141 @@ public class AppData implements DataComponent{
         this.processor = new TSDProcessor();
         this.applicationTemplate = applicationTemplate;
         manager = applicationTemplate.manager;
-        loadedData = "";
         amChangingComboBox = true;
     }
 
-    public static class InvalidDataPairException extends Exception {
-        private static final String DATA_ERROR_MSG = "All data instances must contain two double values separated by a comma";
-        InvalidDataPairException(String name) {
-            super(String.format("Invalid data pair '%s'. " + DATA_ERROR_MSG, name));
-        }
-    }
-    public static class DuplicateException extends Exception {
-        private static final String DATA_ERROR_MSG = "There is a duplicate entry of ";
-        DuplicateException(String occurence) {
-            super(DATA_ERROR_MSG + occurence);
-        }
-    }
-    public static class InvalidFormatException extends Exception {
-        private static final String DATA_ERROR_MSG = "This line is malformatted";
-        InvalidFormatException() { super(DATA_ERROR_MSG );
-        }
-    }
-
     public boolean isDataIsValid(){ return dataIsValid; }
 
+    /**
+     * Loads a data file and shows every one of its lines in a viewer that reads them from the file as they are
+     * scrolled into view, through the line offsets recorded while the file was parsed.
+     *
+     * @param dataFilePath the file to load
+     */
     @Override
     public void loadData(Path dataFilePath) {
+        AppUI appUI = (AppUI)applicationTemplate.getUIComponent();
         try{
             clear();
-            BufferedReader reader = new BufferedReader(new FileReader(dataFilePath.toString()));
-            StringBuilder buffer;
-            buffer = new StringBuilder();
-            String line;
-            while((line = reader.readLine()) != null){
-                buffer.append(line).append("\n");
-            }
-            loadedData = buffer.toString();
-            TextArea textArea = ((AppUI)applicationTemplate.getUIComponent()).getTextArea();
-            transferLines(loadedData);
-            if(getLineCount(loadedData) > 10)
-                applicationTemplate.getDialog(Dialog.DialogType.ERROR).show(manager.getPropertyValue(TOO_MUCH_DATA.name()), manager.getPropertyValue(MANY_LINES_1.name())+(getLineCount(loadedData)-1)+manager.getPropertyValue(MANY_LINES_2.name()));
-            textArea.setDisable(true);
-            textArea.setVisible(true);
-            loadData(loadedData);
-            ((AppUI)applicationTemplate.getUIComponent()).getSaveButton().setDisable(true);
+            dataIsValid = false;
+            LineIndex lineIndex = new LineIndex();
+            processor.processFile(dataFilePath, lineIndex);
+            checkProcessedData(processor);
+            if(TSDBinary.isBinary(dataFilePath) || TSDReader.isCompressed(dataFilePath))
+                appUI.showDataView(PagedTSDLines.of(processor.getColumns()));
+            else
+                appUI.showDataView(new PagedTSDLines(dataFilePath, lineIndex));
+            showData();
+            appUI.getSaveButton().setDisable(true);
         }
         catch (Exception e){
+            processor.clear();
+            appUI.hideDataView();
             applicationTemplate.getDialog(Dialog.DialogType.ERROR).show(manager.getPropertyValue(LOAD_ERROR_TITLE.name()), manager.getPropertyValue(DATA_FORMAT_ERROR_2.name())+"\n"+e.getMessage());
         }
     }
 
+    /**
+     * Loads the data typed into the text area. Once some text has loaded without errors, loading an edited version of
+     * it only validates and processes the lines that changed, and patches the chart instead of redrawing it. Finding
+     * those lines still splits the whole text and compares it line by line with the text loaded before, so each load
+     * takes time linear in the length of the text, though far less than parsing it again.
+     *
+     * @param dataString the content of the text area
+     */
     public void loadData(String dataString) {
         try {
-            AppUI appUI = (AppUI)applicationTemplate.getUIComponent();
             dataIsValid = false;
-            ((AppUI)applicationTemplate.getUIComponent()).enableScreenshotButton(true);
-            checkString(dataString);
-            processor.processString(dataString);
-            displayData();
-            showMetaData();
-            appUI.showMetaLabel();
-            appUI.showComboBox();
+            String[] lines = dataString.split("\n");
+            if(processedLines == null){
+                processor.clear();
+                processor.processLines(lines);
+            }
+            else
+                processor.processEdit(processedLines, lines);
+            checkProcessedData(processor);
+            processedLines = lines;
+            showData();
         }
         catch (Exception e) {
+            processor.forgetChart();
             if(((AppUI)applicationTemplate.getUIComponent()).getTextArea().isDisabled()) ((AppUI)applicationTemplate.getUIComponent()).getTextArea().setVisible(false);
             applicationTemplate.getDialog(Dialog.DialogType.ERROR).show(manager.getPropertyValue(LOAD_ERROR_TITLE.name()), manager.getPropertyValue(DATA_FORMAT_ERROR_2.name())+"\n"+e.getMessage());
         }
     }
 
+    private void showData() {
+        AppUI appUI = (AppUI)applicationTemplate.getUIComponent();
+        appUI.enableScreenshotButton(true);
+        if(!processor.isPlotted())
+            displayData();
+        showMetaData();
+        appUI.showMetaLabel();
+        appUI.showComboBox();
+    }
+
+    /**
+     * Finds the label of the point under a location of the chart, such as the one under the mouse, through a spatial
+     * index of the loaded data that is built the first time it is needed and then kept up to date by edits.
+     *
+     * @param maxDx how far from the location a point may lie along the x axis to count as under it
+     * @param maxDy how far from the location a point may lie along the y axis to count as under it
+     * @return the label of the nearest point that close, or <code>null</code> if there is none
+     */
+    public String labelNear(double x, double y, double maxDx, double maxDy) {
+        int index = processor.shownInstanceNear(x, y, maxDx, maxDy);
+        return index < 0 ? null : processor.shownLabel(index);
+    }
+
+    /**
+     * Gives the algorithms their own copy of the loaded data, so that relabeling it during a run leaves the loaded
+     * data intact.
+     *
+     * @return a new dataset holding every loaded instance
+     */
+    public DataSet getDataSet() {
+        return processor.toDataSet();
+    }
+
+    /**
+     * Saves the data in the text area, encoding it from the validated instances rather than copying the text. If the
+     * text is the one last loaded, the loaded instances are written without being validated again, in the order of the
+     * lines. The file is written in the format given
+     * by its extension and replaced atomically, so a failed save leaves it untouched.
+     */
     @Override
     public void saveData(Path dataFilePath) {
         try{
-            String data = ((AppUI)applicationTemplate.getUIComponent()).getTextArea().getText();
-            checkString(data);
-            PrintWriter writer = new PrintWriter(Files.newOutputStream(dataFilePath));
-            data = data.replaceAll("\n", System.lineSeparator());
-            writer.write(data);
-            writer.close();
-            ((AppUI)applicationTemplate.getUIComponent()).enableSaveButton(false);
+            saveData(checkString(((AppUI)applicationTemplate.getUIComponent()).getTextArea().getText()), dataFilePath);
         }
         catch (Exception e) {
             applicationTemplate.getDialog(Dialog.DialogType.ERROR).show(manager.getPropertyValue(SAVE_ERROR_TITLE.name()), manager.getPropertyValue(DATA_FORMAT_ERROR_2.name())+"\n"+e.getMessage());
         }
     }
 
+    /**
+     * Saves instances already validated by {@link #checkString}, so that the text is not validated again.
+     *
+     * @param checked the instances to save
+     * @throws IOException if the file cannot be written
+     */
+    public void saveData(ColumnarDataSet checked, Path dataFilePath) throws IOException {
+        TSDWriter.write(checked, dataFilePath);
+        ((AppUI)applicationTemplate.getUIComponent()).enableSaveButton(false);
+    }
+
     @Override
     public void clear() {
-        if(!loadedData.equals(""))
-            loadedData = "";
         processor.clear();
+        processedLines = null;
         applicationTemplate.getUIComponent().clear();
         clearMetaData();
     }
 
     private void displayData() {
-        processor.toChartData(((AppUI)applicationTemplate.getUIComponent()).getChart());
+        LineChart<Number, Number> chart = ((AppUI)applicationTemplate.getUIComponent()).getChart();
+        chart.getData().clear();
+        processor.toChartData(chart);
     }
 
     public void removeAlgorithmTrace(LineChart<Number, Number> chart){
@@ -187,95 +223,64 @@ public class AppData implements DataComponent{
         appUI.getMetaLabel().setText("");
     }
 
-    private void transferLines(String data){
-        int lines = 10;
-        TextArea displayedTextArea = ((AppUI)applicationTemplate.getUIComponent()).getTextArea();
-        while(!data.equals("") && lines > 0){
-            lines--;
-            displayedTextArea.setText(displayedTextArea.getText()+data.substring(0, data.indexOf("\n")+1));
-            data = data.substring(data.indexOf("\n")+1);
+    /**
+     * Validates the given text and gives its instances, in the order of its lines. The text last loaded needs no
+     * validation, and an edited version of it only has its edited lines validated, against a copy of the loaded
+     * instances.
+     *
+     * @throws IOException naming the first line that is not valid
+     */
+    public ColumnarDataSet checkString(String dataString) throws IOException{
+        String[] lines = dataString.split("\n");
+        if(processedLines != null && Arrays.equals(lines, processedLines))
+            return processor.columnsInLineOrder(lines);
+        TSDProcessor checker = new TSDProcessor();
+        if(processedLines == null)
+            checker.processLines(lines);
+        else {
+            checker.setColumns(processor.getColumns().copy());
+            checker.processEdit(processedLines, lines);
         }
-
+        checkProcessedData(checker);
+        return checker.columnsInLineOrder(lines);
     }
 
-    private int getLineCount(String text) {
-        int lines = 0;
-        for(int i = 0; i<text.length(); i++){
-            if(text.substring(i, i+1).equals("\n"))
-                lines++;
+    /**
+     * Reports the first line the given processor could not process, or records the instance and label counts of its
+     * data if every line was valid.
+     */
+    private void checkProcessedData(TSDProcessor checked) throws IOException{
+        List<TSDProcessor.LineError> errors = checked.getErrors();
+        if(!errors.isEmpty()){
+            TSDProcessor.LineError error = errors.get(0);
+            throw new IOException(manager.getPropertyValue(ERROR_THIS_LINE.name())+error.getLineNumber()+": "+error.getMessage()+".");
         }
-        return lines;
-    }
-
-    //this method will give the error line by parsing the string for the error
-    public void checkString(String dataString) throws IOException{
-        nullInData = false;
-        instances = 0;
-        labels = 0;
-        labelNames = "";
+        instances = checked.getDataLabels().size();
+        labels = checked.getLabelNames().size();
+        nullInData = checked.getLabelNames().contains(manager.getPropertyValue(NULL.name()));
         StringBuilder ln = new StringBuilder();
-        ArrayList<String[]> dataArray = new ArrayList<>();
-        String[] lines = dataString.split("\n");
-        for(String line: lines){
-            dataArray.add(line.split("\t"));
-        }
-        ArrayList<String> instanceList = new ArrayList<>();
-        ArrayList<String> labelList = new ArrayList<>();
-        for(int i = 0; i<dataArray.size(); i++){
-            try {
-                String[] line = dataArray.get(i);
-                if(line.length != 3)
-                    throw new InvalidFormatException();
-                instanceList.add(checkDuplicate(checkName(line[0]), instanceList));
-                instances++;
-                if(!labelList.contains(line[1])) {
-                    labelList.add(line[1]);
-                    if(line[1].equals(manager.getPropertyValue(NULL.name())))
-                        nullInData = true;
-                    labels++;
-                    ln.append("- ").append(line[1]).append("\n");
-                }
-                checkPoints(line[2]);
-            }
-            catch(Exception e){
-                throw new IOException(manager.getPropertyValue(ERROR_THIS_LINE.name())+(i+1)+": "+e.getMessage()+".");
-            }
-        }
-        dataIsValid = true;
+        for(String label: checked.getLabelNames())
+            ln.append("- ").append(label).append("\n");
         labelNames = ln.toString();
+        dataIsValid = true;
     }
 
-    private String checkName(String name) throws TSDProcessor.InvalidDataNameException {
-        if (!name.startsWith("@"))
-            throw new TSDProcessor.InvalidDataNameException(name);
-        return name;
-    }
-
-    @SuppressWarnings("ResultOfMethodCallIgnored")
-    private void checkPoints(String pair) throws InvalidDataPairException{
-        try {
-            String[] pairArray = pair.split(",");
-            Double.parseDouble(pairArray[0]);
-            Double.parseDouble(pairArray[1]);
-        }
-        catch (Exception e){
-            throw new InvalidDataPairException(pair);
-        }
-    }
-
-    private String checkDuplicate(String item, List list) throws DuplicateException{
-        if(list.contains(item))
-            throw new DuplicateException(item);
-        return item;
-    }
-
-    public void processDataSet(DataSet dataSet){
-        ((AppUI)applicationTemplate.getUIComponent()).getChart().getData().clear();
-        processor.processString(dataSet);
-        processor.toChartData(((AppUI)applicationTemplate.getUIComponent()).getChart());
+    /**
+     * Shows a frame of a running clusterer. The view is owned by the thread showing the run: the first frame draws it
+     * on the chart, and later frames only move the points whose labels changed.
+     *
+     * @param view  the copy of the dataset of the run, which the delta is applied to
+     * @param delta the label changes since the previous frame
+     */
+    public void processLabels(ColumnarDataSet view, LabelDelta delta){
+        if(processor.patchRunChart(view, delta))
+            return;
+        LineChart<Number, Number> chart = ((AppUI)applicationTemplate.getUIComponent()).getChart();
+        chart.getData().clear();
+        processor.toRunChart(chart, view);
     }
 
-    public void processList(List<Integer> list){
+    public void processList(List<Double> list){
         processor.processList(list);
     }
 }
@@ -0,0 +1,43 @@
+package dataprocessors;
+
+import java.util.Arrays;
+
+/**
+ * The byte offset at which every line of a data file starts, recorded while the file is read so that any line can
+ * later be found again without scanning the file. A line ends where the next one starts, or at the end of the indexed
+ * bytes for the last line, and its terminator is included in that span.
+ */
+final class LineIndex {
+
+    private long[] starts;
+    private int    size;
+    private long   end;
+
+    LineIndex() {
+        starts = new long[1024];
+    }
+
+    void add(long lineStart) {
+        if (size == starts.length)
+            starts = Arrays.copyOf(starts, 2 * starts.length);
+        starts[size++] = lineStart;
+    }
+
+    /** Appends the lines of an index of the bytes that follow the ones indexed here. */
+    void append(LineIndex following) {
+        if (size + following.size > starts.length)
+            starts = Arrays.copyOf(starts, Math.max(size + following.size, 2 * starts.length));
+        System.arraycopy(following.starts, 0, starts, size, following.size);
+        size += following.size;
+        end = following.end;
+    }
+
+    void setEnd(long end) { this.end = end; }
+
+    int size() { return size; }
+
+    long start(int line) { return starts[line]; }
+
+    /** @return the offset just past the line, including its terminator */
+    long end(int line) { return line + 1 < size ? starts[line + 1] : end; }
+}
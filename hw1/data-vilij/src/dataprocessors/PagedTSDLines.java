@@ -0,0 +1,89 @@
+package dataprocessors;
+
+import data.ColumnarDataSet;
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read-only list of the lines of a data file that decodes a line only when it is asked for, so that a
+ * {@link javafx.scene.control.ListView} can page through a file of any length while holding just the lines on screen.
+ * Lines are found through the {@link LineIndex} built while the file was parsed, and read from a mapped page of the
+ * file, centred on the line that was last missing from it, so that scrolling either way rarely maps a new page.
+ */
+final class PagedTSDLines extends ObservableListBase<String> {
+
+    private static final long PAGE_SIZE       = 1L << 24;
+    private static final byte NEW_LINE        = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    private final Path       dataFilePath;
+    private final LineIndex  lineIndex;
+    private MappedByteBuffer page;
+    private long             pageStart;
+    private byte[]           lineBytes;
+
+    PagedTSDLines(Path dataFilePath, LineIndex lineIndex) {
+        this.dataFilePath = dataFilePath;
+        this.lineIndex = lineIndex;
+        this.lineBytes = new byte[256];
+    }
+
+    /**
+     * Presents instances that were not read from text, such as those of a binary snapshot, as the lines they would be
+     * saved as, formatting each one only when it is asked for.
+     *
+     * @param columns the instances to present
+     * @return the lines of the instances
+     */
+    static ObservableList<String> of(ColumnarDataSet columns) {
+        return new ObservableListBase<String>() {
+            @Override
+            public String get(int index) { return TSDProcessor.lineOf(columns, index); }
+
+            @Override
+            public int size() { return columns.size(); }
+        };
+    }
+
+    @Override
+    public String get(int index) {
+        long start = lineIndex.start(index);
+        long end   = lineIndex.end(index);
+        if (page == null || start < pageStart || end > pageStart + page.limit())
+            map(start, end);
+        int from = (int) (start - pageStart);
+        int to   = (int) (end - pageStart);
+        if (to > from && page.get(to - 1) == NEW_LINE)
+            to--;
+        if (to > from && page.get(to - 1) == CARRIAGE_RETURN)
+            to--;
+        int length = to - from;
+        if (length > lineBytes.length)
+            lineBytes = new byte[Math.max(length, 2 * lineBytes.length)];
+        page.position(from);
+        page.get(lineBytes, 0, length);
+        return new String(lineBytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int size() { return lineIndex.size(); }
+
+    private void map(long start, long end) {
+        try (FileChannel channel = FileChannel.open(dataFilePath, StandardOpenOption.READ)) {
+            long first = Math.max(0, start - PAGE_SIZE / 2);
+            long size  = Math.max(end - first, Math.min(PAGE_SIZE, channel.size() - first));
+            page = channel.map(FileChannel.MapMode.READ_ONLY, first, size);
+            pageStart = first;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
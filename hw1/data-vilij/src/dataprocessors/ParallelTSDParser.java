@@ -0,0 +1,126 @@
+package dataprocessors;
+
+import data.ColumnarDataSet;
+import data.TSDTokenizer;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parses a <code>.tsd</code> file on a {@link ForkJoinPool}. The file is split into byte ranges aligned to line
+ * boundaries, every range is validated and parsed into its own columns with line numbers counted from the start of
+ * the range, and the ranges are then merged in file order. The merge shifts every line number by the number of lines
+ * before its range and rejects names that an earlier range already holds, so the result is the same as parsing the
+ * file line by line.
+ */
+final class ParallelTSDParser {
+
+    /** Files smaller than this many bytes are parsed faster on a single thread. */
+    static final long PARALLEL_THRESHOLD = 8L << 20;
+
+    private static final int RANGES_PER_THREAD = 4;
+
+    /** The instances, line numbers and errors of one byte range of the file. */
+    private static final class ParsedRange {
+        private final ColumnarDataSet columns = new ColumnarDataSet();
+        private final List<TSDProcessor.LineError> errors = new ArrayList<>();
+        private final TSDTokenizer tokenizer = new TSDTokenizer();
+        private final LineIndex lineIndex = new LineIndex();
+        private int[] lineNumbers = new int[16];
+        private int   lineCount;
+
+        void parseLine(String line, int lineNumber) {
+            int code = TSDProcessor.addLine(tokenizer, line, columns);
+            if (code != TSDTokenizer.OK) {
+                errors.add(new TSDProcessor.LineError(lineNumber, TSDProcessor.errorMessage(code, tokenizer)));
+                return;
+            }
+            if (columns.size() > lineNumbers.length)
+                lineNumbers = Arrays.copyOf(lineNumbers, 2 * lineNumbers.length);
+            lineNumbers[columns.size() - 1] = lineNumber;
+        }
+    }
+
+    @SuppressWarnings("serial") // tasks are never serialized
+    private final class ParseTask extends RecursiveAction {
+
+        private final int first;
+        private final int last;
+
+        ParseTask(int first, int last) {
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected void compute() {
+            if (last - first > 1) {
+                int middle = (first + last) >>> 1;
+                invokeAll(new ParseTask(first, middle), new ParseTask(middle, last));
+                return;
+            }
+            ParsedRange range = new ParsedRange();
+            try {
+                TSDReader reader = new TSDReader(dataFilePath, lineIndex == null ? null : range.lineIndex);
+                range.lineCount = reader.read(bounds[first], bounds[first + 1], range::parseLine);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            ranges[first] = range;
+        }
+    }
+
+    private final Path         dataFilePath;
+    private final ForkJoinPool pool;
+    private long[]             bounds;
+    private ParsedRange[]      ranges;
+    private LineIndex          lineIndex;
+
+    ParallelTSDParser(Path dataFilePath) {
+        this(dataFilePath, ForkJoinPool.commonPool());
+    }
+
+    ParallelTSDParser(Path dataFilePath, ForkJoinPool pool) {
+        this.dataFilePath = dataFilePath;
+        this.pool = pool;
+    }
+
+    /**
+     * Parses the file into the given processor, which records the errors of every range with their line numbers in
+     * the whole file, and records where every line starts. Each range indexes its own lines, and the indexes are joined
+     * in file order along with the instances.
+     *
+     * @param processor the processor receiving the instances
+     * @param lineIndex the index to record the lines in, or <code>null</code>
+     * @return the number of lines in the file
+     * @throws Exception if the file cannot be read
+     */
+    int parseInto(TSDProcessor processor, LineIndex lineIndex) throws Exception {
+        this.lineIndex = lineIndex;
+        bounds = new TSDReader(dataFilePath).lineAlignedRanges(pool.getParallelism() * RANGES_PER_THREAD);
+        ranges = new ParsedRange[bounds.length - 1];
+        try {
+            pool.invoke(new ParseTask(0, ranges.length));
+        } catch (IllegalStateException e) {
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (!(cause instanceof RuntimeException) && cause instanceof Exception)
+                    throw (Exception) cause;
+            }
+            throw e;
+        }
+        int lineOffset = 0;
+        for (ParsedRange range : ranges) {
+            processor.addProcessed(range.columns, range.lineNumbers, range.errors, lineOffset);
+            if (lineIndex != null)
+                lineIndex.append(range.lineIndex);
+            lineOffset += range.lineCount;
+        }
+        processor.getErrors().sort(Comparator.comparingInt(TSDProcessor.LineError::getLineNumber));
+        return lineOffset;
+    }
+}
@@ -0,0 +1,172 @@
+package dataprocessors;
+
+import data.ColumnarDataSet;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes <code>.tsdb</code> files, a binary snapshot of a {@link ColumnarDataSet} that can be reopened without
+ * parsing or validating any text. All values are big-endian, and a file is laid out as
+ * <pre>
+ *     int     magic number "TSDB"
+ *     int     format version
+ *     int     instance count n
+ *     int     label count m
+ *     double  minimum x, maximum x, minimum y, maximum y
+ *     double  x coordinates [n]
+ *     double  y coordinates [n]
+ *     int     label codes [n], -1 for an instance without a label
+ *     label dictionary [m], each as an int byte length followed by UTF-8 bytes
+ *     name table [n], each as an int byte length followed by UTF-8 bytes
+ * </pre>
+ * The fixed-width coordinate and label blocks sit at offsets given by the header alone, so reading maps each of them
+ * and copies it into its column in one bulk transfer.
+ */
+final class TSDBinary {
+
+    static final String FILE_EXTENSION = ".tsdb";
+
+    private static final int  MAGIC         = 0x54534442;
+    private static final int  VERSION       = 1;
+    private static final int  HEADER_SIZE   = 4 * Integer.BYTES + 4 * Double.BYTES;
+    private static final int  BUFFER_SIZE   = 1 << 16;
+    private static final long MAX_BLOCK     = Integer.MAX_VALUE;
+    private static final String NOT_TSDB    = "%s is not a valid .tsdb file";
+
+    private TSDBinary() {}
+
+    static boolean isBinary(Path dataFilePath) {
+        return dataFilePath.getFileName().toString().toLowerCase().endsWith(FILE_EXTENSION);
+    }
+
+    /**
+     * Writes the instances of a dataset as a binary snapshot to a stream, which is left open.
+     *
+     * @param columns the instances to write
+     * @param out     the stream to write them to
+     * @throws IOException if the stream cannot be written
+     */
+    static void write(ColumnarDataSet columns, OutputStream out) throws IOException {
+        DataOutputStream data  = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+        int              count = columns.size();
+        double[]         xs    = columns.getXs();
+        double[]         ys    = columns.getYs();
+        List<String>     labels = columns.getLabelDictionary();
+        double minX = Double.NaN, maxX = Double.NaN, minY = Double.NaN, maxY = Double.NaN;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || xs[i] < minX) minX = xs[i];
+            if (i == 0 || xs[i] > maxX) maxX = xs[i];
+            if (i == 0 || ys[i] < minY) minY = ys[i];
+            if (i == 0 || ys[i] > maxY) maxY = ys[i];
+        }
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(count);
+        data.writeInt(labels.size());
+        data.writeDouble(minX);
+        data.writeDouble(maxX);
+        data.writeDouble(minY);
+        data.writeDouble(maxY);
+        for (int i = 0; i < count; i++)
+            data.writeDouble(xs[i]);
+        for (int i = 0; i < count; i++)
+            data.writeDouble(ys[i]);
+        for (int i = 0; i < count; i++)
+            data.writeInt(columns.getLabelCode(i));
+        for (String label : labels)
+            writeString(data, label);
+        for (int i = 0; i < count; i++)
+            writeString(data, columns.getName(i));
+        data.flush();
+    }
+
+    /**
+     * Reads a binary snapshot into a new dataset.
+     *
+     * @param dataFilePath the file to read
+     * @return the instances held in the file
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    static ColumnarDataSet read(Path dataFilePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(dataFilePath, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0);
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION)
+                throw new IOException(String.format(NOT_TSDB, dataFilePath.getFileName()));
+            int count      = header.getInt();
+            int labelCount = header.getInt();
+            long position  = HEADER_SIZE;
+            if (count < 0 || labelCount < 0 || channel.size() < position + (long) count * (2 * Double.BYTES + Integer.BYTES))
+                throw new IOException(String.format(NOT_TSDB, dataFilePath.getFileName()));
+
+            double[] xs = new double[count];
+            position = readDoubles(channel, position, xs);
+            double[] ys = new double[count];
+            position = readDoubles(channel, position, ys);
+            int[] labelCodes = new int[count];
+            position = readInts(channel, position, labelCodes);
+
+            channel.position(position);
+            DataInputStream data   = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+            List<String>    labels = new ArrayList<>(labelCount);
+            String[]        names  = new String[count];
+            try {
+                for (int i = 0; i < labelCount; i++)
+                    labels.add(readString(data));
+                for (int i = 0; i < count; i++)
+                    names[i] = readString(data);
+                return ColumnarDataSet.of(names, xs, ys, labelCodes, labels);
+            } catch (EOFException | IllegalArgumentException e) {
+                throw new IOException(String.format(NOT_TSDB, dataFilePath.getFileName()) + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static long readDoubles(FileChannel channel, long position, double[] column) throws IOException {
+        int done = 0;
+        while (done < column.length) {
+            int length = (int) Math.min(column.length - done, MAX_BLOCK / Double.BYTES);
+            channel.map(FileChannel.MapMode.READ_ONLY, position, (long) length * Double.BYTES)
+                   .asDoubleBuffer().get(column, done, length);
+            position += (long) length * Double.BYTES;
+            done += length;
+        }
+        return position;
+    }
+
+    private static long readInts(FileChannel channel, long position, int[] column) throws IOException {
+        int done = 0;
+        while (done < column.length) {
+            int length = (int) Math.min(column.length - done, MAX_BLOCK / Integer.BYTES);
+            channel.map(FileChannel.MapMode.READ_ONLY, position, (long) length * Integer.BYTES)
+                   .asIntBuffer().get(column, done, length);
+            position += (long) length * Integer.BYTES;
+            done += length;
+        }
+        return position;
+    }
+
+    private static void writeString(DataOutputStream data, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+
+    private static String readString(DataInputStream data) throws IOException {
+        int length = data.readInt();
+        if (length < 0)
+            throw new EOFException("Negative string length");
+        byte[] bytes = new byte[length];
+        data.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,63 @@
+package dataprocessors;
+
+import data.ColumnarDataSet;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Converts data files between the <code>.tsd</code> text format, its gzip-compressed <code>.tsd.gz</code> form and the
+ * <code>.tsdb</code> binary snapshot format, in the direction given by the extensions of the two files. Usage:
+ * <pre>
+ *     java dataprocessors.TSDConverter input.tsd output.tsdb
+ *     java dataprocessors.TSDConverter input.tsdb output.tsd
+ *     java dataprocessors.TSDConverter input.tsd output.tsd.gz
+ * </pre>
+ * Text input is validated exactly as it is when loaded into the application, and is not converted if any line is
+ * invalid.
+ */
+public final class TSDConverter {
+
+    private static final String USAGE = "Usage: TSDConverter <input.tsd|input.tsd.gz|input.tsdb> <output.tsd|output.tsd.gz|output.tsdb>";
+
+    private TSDConverter() {}
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        try {
+            int count = convert(Paths.get(args[0]), Paths.get(args[1]));
+            System.out.println("Converted " + count + " instances to " + args[1]);
+        } catch (Exception e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Converts one data file into another.
+     *
+     * @param input  the file to read, in the format given by its extension
+     * @param output the file to write, in the format given by its extension
+     * @return the number of instances converted
+     * @throws Exception if the input cannot be read or has invalid lines, or the output cannot be written
+     */
+    public static int convert(Path input, Path output) throws Exception {
+        ColumnarDataSet columns = read(input);
+        TSDWriter.write(columns, output);
+        return columns.size();
+    }
+
+    private static ColumnarDataSet read(Path input) throws Exception {
+        TSDProcessor processor = new TSDProcessor();
+        processor.processFile(input);
+        if (!processor.getErrors().isEmpty()) {
+            TSDProcessor.LineError error = processor.getErrors().get(0);
+            throw new IOException(input.getFileName() + ", line " + error.getLineNumber() + ": " + error.getMessage());
+        }
+        return processor.getColumns();
+    }
+}
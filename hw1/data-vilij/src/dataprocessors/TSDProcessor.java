@@ -1,13 +1,15 @@
 package dataprocessors;
 
+import data.ColumnarDataSet;
 import data.DataSet;
-import javafx.geometry.Point2D;
+import data.KDTree;
+import data.LabelDelta;
+import data.TSDTokenizer;
 import javafx.scene.chart.LineChart;
-import javafx.scene.control.Tooltip;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.stream.Stream;
 
 /**
  * The data files used by this data visualization applications follow a tab-separated format, where each data point is
@@ -20,23 +22,53 @@ import java.util.stream.Stream;
  */
 final class TSDProcessor {
 
-    static class InvalidDataNameException extends Exception {
+    private static final String NAME_ERROR_MSG      = "Invalid name '%s'. All data instance names must start with the @ character";
+    private static final String PAIR_ERROR_MSG      = "Invalid data pair '%s'. All data instances must contain two double values separated by a comma";
+    private static final String DUPLICATE_ERROR_MSG = "There is a duplicate entry of %s";
+    private static final String FORMAT_ERROR_MSG    = "This line is malformatted";
 
-        private static final String NAME_ERROR_MSG = "All data instance names must start with the @ character";
+    /** The code {@link #addLine} gives a line whose name is already taken, next to those of {@link TSDTokenizer}. */
+    static final int DUPLICATE_NAME = TSDTokenizer.INVALID_PAIR + 1;
 
-        InvalidDataNameException(String name) {
-            super(String.format("Invalid name '%s'. " + NAME_ERROR_MSG, name));
+    /** A frame of a run moving more than one in this many points redraws the chart instead of patching it. */
+    private static final int MAX_PATCHED_SHARE = 8;
+
+    /** The position and description of a line that could not be processed. */
+    static final class LineError {
+
+        private final int    lineNumber;
+        private final String message;
+
+        LineError(int lineNumber, String message) {
+            this.lineNumber = lineNumber;
+            this.message = message;
         }
+
+        int getLineNumber() { return lineNumber; }
+
+        String getMessage() { return message; }
     }
 
+    private ColumnarDataSet data;
     private Map<String, String> dataLabels;
-    private Map<String, Point2D> dataPoints;
+    private List<LineError> errors;
+    private TSDTokenizer tokenizer;
     private LineChart.Series<Number,Number> algSeries;
     private boolean seriesInserted;
+    private LineChart<Number, Number> plottedChart;                // the chart showing the processed data, or null
+    private List<LineChart.Data<Number, Number>> plottedPoints;    // the chart point of each processed instance
+    private List<LineChart.Series<Number, Number>> plottedSeries;  // the chart series of each label code
+    private KDTree spatialIndex;                                   // built on first use, then kept up to date by edits
+    private LineChart<Number, Number> runChart;                    // the chart showing a running algorithm, or null
+    private ColumnarDataSet runView;                               // the labels of the running algorithm as shown
+    private List<LineChart.Data<Number, Number>> runPoints;        // the chart point of each instance of the run
+    private List<LineChart.Series<Number, Number>> runSeries;      // the chart series of each label code of the run
 
     TSDProcessor() {
-        dataLabels = new HashMap<>();
-        dataPoints = new HashMap<>();
+        data = new ColumnarDataSet();
+        dataLabels = data.labelView();
+        errors = new ArrayList<>();
+        tokenizer = new TSDTokenizer();
         algSeries = new LineChart.Series<>();
         seriesInserted = false;
     }
@@ -45,76 +77,512 @@ final class TSDProcessor {
         return dataLabels;
     }
 
-    Map<String, Point2D> getDataPoints() {
-        return dataPoints;
+    /** @return the processed instances */
+    ColumnarDataSet getColumns() {
+        return data;
+    }
+
+    /**
+     * Replaces the processed data with instances that have already been validated, such as those of a binary
+     * snapshot.
+     *
+     * @param columns the instances to take over
+     */
+    void setColumns(ColumnarDataSet columns) {
+        data = columns;
+        spatialIndex = null;
+        dataLabels = data.labelView();
+        errors.clear();
+    }
+
+    /** @return the distinct labels of the processed instances, in the order they were first seen */
+    Set<String> getLabelNames() {
+        Set<String> labelNames = new LinkedHashSet<>();
+        List<String> labels = data.getLabelDictionary();
+        for (int code = 0; code < labels.size(); code++) {
+            if (data.getLabelSize(code) > 0)
+                labelNames.add(labels.get(code));
+        }
+        return labelNames;
+    }
+
+    /**
+     * @return a tree over the locations of the processed instances, with their indices as ids, which {@link #processEdit}
+     *         updates point by point
+     */
+    KDTree getSpatialIndex() {
+        if (spatialIndex == null)
+            spatialIndex = new KDTree(data);
+        return spatialIndex;
+    }
+
+    /** @return the lines that could not be processed, in line order */
+    List<LineError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Processes a whole data file. A <code>.tsdb</code> snapshot is taken over as it is; a <code>.tsd</code> file is
+     * validated and parsed line by line, in parallel once it is large enough for that to pay off, and a compressed
+     * <code>.tsd.gz</code> file line by line as it is decompressed. An empty text file is reported as a malformatted
+     * first line.
+     *
+     * @param dataFilePath the file to process
+     * @return the number of lines in the file, which is the number of instances for a snapshot
+     * @throws Exception if the file cannot be read
+     */
+    int processFile(Path dataFilePath) throws Exception {
+        return processFile(dataFilePath, null);
+    }
+
+    /**
+     * Processes a whole data file as {@link #processFile(Path)} does, also recording where each line of a text file
+     * starts.
+     *
+     * @param dataFilePath the file to process
+     * @param lineIndex    the index to record the lines in, which is left empty for a snapshot or a compressed file,
+     *                     or <code>null</code>
+     * @return the number of lines in the file, which is the number of instances for a snapshot
+     * @throws Exception if the file cannot be read
+     */
+    int processFile(Path dataFilePath, LineIndex lineIndex) throws Exception {
+        if (TSDBinary.isBinary(dataFilePath)) {
+            setColumns(TSDBinary.read(dataFilePath));
+            return data.size();
+        }
+        boolean sequential = TSDReader.isCompressed(dataFilePath)
+                             || Files.size(dataFilePath) < ParallelTSDParser.PARALLEL_THRESHOLD;
+        int lineCount = sequential
+                ? new TSDReader(dataFilePath, lineIndex).read(this::processLine)
+                : new ParallelTSDParser(dataFilePath).parseInto(this, lineIndex);
+        if (lineCount == 0)
+            processLine("", 1);
+        return lineCount;
     }
 
     /**
-     * Processes the data and populated two {@link Map} objects with the data.
+     * Processes every line of the data, recording the lines that do not follow the <code>.tsd</code> data format in
+     * {@link #getErrors()} instead of stopping at the first one.
      *
      * @param tsdString the input data provided as a single {@link String}
-     * @throws Exception if the input string does not follow the <code>.tsd</code> data format
      */
-    void processString(String tsdString) throws Exception {
-        seriesInserted = false;
-        AtomicBoolean hadAnError   = new AtomicBoolean(false);
-        StringBuilder errorMessage = new StringBuilder();
-        Stream.of(tsdString.split("\n"))
-              .map(line -> Arrays.asList(line.split("\t")))
-              .forEach(list -> {
-                  try {
-                      String   name  = checkedname(list.get(0));
-                      String   label = list.get(1);
-                      String[] pair  = list.get(2).split(",");
-                      Point2D  point = new Point2D(Double.parseDouble(pair[0]), Double.parseDouble(pair[1]));
-                      dataLabels.put(name, label);
-                      dataPoints.put(name, point);
-                  } catch (Exception e) {
-                      errorMessage.setLength(0);
-                      errorMessage.append(e.getClass().getSimpleName()).append(": ").append(e.getMessage());
-                      hadAnError.set(true);
-                  }
-              });
-        if (errorMessage.length() > 0)
-            throw new Exception(errorMessage.toString());
-    }
-
-    void processString(DataSet dataSet){
-        dataLabels.clear();
-        dataPoints.clear();
-        for(String instance: dataSet.getLabels().keySet()){
-            String label = dataSet.getLabels().get(instance);
-            Point2D point = dataSet.getLocations().get(instance);
-            dataLabels.put(instance, label);
-            dataPoints.put(instance, point);
-        }
-    }
-
-    /**
-     * Exports the data to the specified 2-D chart.
+    void processLines(String tsdString) {
+        processLines(tsdString.split("\n"));
+    }
+
+    void processLines(String[] tsdLines) {
+        for (int i = 0; i < tsdLines.length; i++)
+            processLine(tsdLines[i], i + 1);
+    }
+
+    /**
+     * Brings the processed data from the lines it was processed from to an edited version of them. Only the lines
+     * between the first and last lines that both versions share are validated and processed; the shared lines were
+     * valid before and cannot have become invalid, except by clashing with the name of an edited line, in which case
+     * the edited line is the one reported. Finding the shared lines compares both versions from either end, which
+     * costs time linear in the lines they share; everything else costs time linear in the lines that changed.
+     * <p>
+     * If every edited line is valid, the instances of the replaced lines are removed and those of the edited lines
+     * added, patching the chart point by point if it is showing the processed data. Otherwise the errors are recorded
+     * in {@link #getErrors()} and the processed data is left as it was.
+     *
+     * @param processedLines the lines the processed data currently holds, all of which are valid
+     * @param editedLines    the lines after editing
+     */
+    void processEdit(String[] processedLines, String[] editedLines) {
+        int shorter = Math.min(processedLines.length, editedLines.length);
+        int first   = 0;
+        while (first < shorter && processedLines[first].equals(editedLines[first]))
+            first++;
+        int shared = 0;
+        while (shared < shorter - first
+               && processedLines[processedLines.length - 1 - shared].equals(editedLines[editedLines.length - 1 - shared]))
+            shared++;
+        errors.clear();
+        Set<String> removedNames = new HashSet<>();
+        for (int i = first; i < processedLines.length - shared; i++) {
+            tokenizer.tokenize(processedLines[i]);
+            removedNames.add(tokenizer.name());
+        }
+        ColumnarDataSet added = new ColumnarDataSet(editedLines.length - shared - first);
+        for (int i = first; i < editedLines.length - shared; i++) {
+            int code = addLine(tokenizer, editedLines[i], added);
+            if (code == TSDTokenizer.OK && data.indexOf(tokenizer.name()) >= 0 && !removedNames.contains(tokenizer.name())) {
+                added.remove(added.size() - 1);
+                code = DUPLICATE_NAME;
+            }
+            if (code != TSDTokenizer.OK)
+                errors.add(new LineError(i + 1, errorMessage(code, tokenizer)));
+        }
+        if (!errors.isEmpty())
+            return;
+        for (String name : removedNames)
+            removeInstance(data.indexOf(name));
+        for (int i = 0; i < added.size(); i++)
+            addInstance(added.getName(i), added.getLabel(i), added.getX(i), added.getY(i));
+    }
+
+    /**
+     * Gives the processed instances in the order of the lines they were processed from. An edit removes the instances
+     * of the replaced lines and appends those of the edited lines, which moves others out of line order, so once that
+     * has happened the instances are copied in line order.
+     *
+     * @param lines the lines the processed data holds, all of which are valid
+     * @return the processed instances if they are in line order, or a copy of them in line order
+     */
+    ColumnarDataSet columnsInLineOrder(String[] lines) {
+        int inOrder = 0;
+        while (inOrder < data.size() && isLineOf(lines[inOrder], data.getName(inOrder)))
+            inOrder++;
+        if (inOrder == data.size())
+            return data;
+        ColumnarDataSet ordered = new ColumnarDataSet(lines.length);
+        for (String line : lines) {
+            int index = data.indexOf(line.substring(0, line.indexOf('\t')));
+            ordered.add(data.getName(index), data.getLabel(index), data.getX(index), data.getY(index));
+        }
+        return ordered;
+    }
+
+    private static boolean isLineOf(String line, String name) {
+        return line.startsWith(name) && line.length() > name.length() && line.charAt(name.length()) == '\t';
+    }
+
+    private void removeInstance(int index) {
+        if (plottedChart != null) {
+            int code = data.getLabelCode(index);
+            if (code != ColumnarDataSet.NO_LABEL) {
+                LineChart.Series<Number, Number> series = plottedSeries.get(code);
+                series.getData().remove(plottedPoints.get(index));
+                if (series.getData().isEmpty()) {
+                    plottedChart.getData().remove(series);
+                    plottedSeries.set(code, seriesOf(data.labelOf(code)));
+                }
+            }
+            int last = data.size() - 1;
+            plottedPoints.set(index, plottedPoints.get(last));
+            plottedPoints.remove(last);
+        }
+        if (spatialIndex != null) {
+            int last = data.size() - 1;
+            spatialIndex.remove(index);
+            if (index != last) {
+                spatialIndex.remove(last);
+                spatialIndex.insert(index, data.getX(last), data.getY(last));
+            }
+        }
+        data.remove(index);
+    }
+
+    private void addInstance(String name, String label, double x, double y) {
+        int index = data.add(name, label, x, y);
+        if (spatialIndex != null)
+            spatialIndex.insert(index, x, y);
+        if (plottedChart == null)
+            return;
+        int code = data.getLabelCode(index);
+        while (plottedSeries.size() <= code)
+            plottedSeries.add(seriesOf(data.labelOf(plottedSeries.size())));
+        LineChart.Series<Number, Number> series = plottedSeries.get(code);
+        if (series.getData().isEmpty())
+            plottedChart.getData().add(series);
+        LineChart.Data<Number, Number> point = new LineChart.Data<>(x, y);
+        series.getData().add(point);
+        decorate(point);
+        plottedPoints.add(point);
+    }
+
+    /**
+     * Validates and processes a single line of data in one pass. A valid line is appended to the processed columns,
+     * whose name table doubles as the set of names used to reject duplicates. An invalid line is recorded in
+     * {@link #getErrors()} and leaves the data untouched.
+     *
+     * @param tsdLine    one line of <code>.tsd</code> data, without its line terminator
+     * @param lineNumber the position of the line in the data, starting from 1
+     */
+    void processLine(String tsdLine, int lineNumber) {
+        spatialIndex = null;
+        int code = addLine(tokenizer, tsdLine, data);
+        if (code != TSDTokenizer.OK)
+            errors.add(new LineError(lineNumber, errorMessage(code, tokenizer)));
+    }
+
+    /**
+     * Validates a single line of data and appends its instance to the given columns. Nothing but the name and label
+     * of a valid line is copied out of it.
+     *
+     * @param tokenizer the tokenizer to split the line with
+     * @param tsdLine   one line of <code>.tsd</code> data, without its line terminator
+     * @param columns   the columns to add the instance to, whose names are checked for duplicates
+     * @return {@link TSDTokenizer#OK}, one of the other {@link TSDTokenizer} codes, or {@link #DUPLICATE_NAME}
+     */
+    static int addLine(TSDTokenizer tokenizer, String tsdLine, ColumnarDataSet columns) {
+        int code = tokenizer.tokenize(tsdLine);
+        if (code != TSDTokenizer.OK)
+            return code;
+        String name = tokenizer.name();
+        if (columns.indexOf(name) >= 0)
+            return DUPLICATE_NAME;
+        columns.add(name, tokenizer.label(), tokenizer.x(), tokenizer.y());
+        return TSDTokenizer.OK;
+    }
+
+    /**
+     * Describes why {@link #addLine} rejected the line the tokenizer last split.
+     *
+     * @param code      the code returned by {@link #addLine}
+     * @param tokenizer the tokenizer that split the line
+     * @return the message to report for the line
+     */
+    static String errorMessage(int code, TSDTokenizer tokenizer) {
+        switch (code) {
+            case TSDTokenizer.INVALID_NAME:
+                return String.format(NAME_ERROR_MSG, tokenizer.name());
+            case TSDTokenizer.INVALID_PAIR:
+                return String.format(PAIR_ERROR_MSG, tokenizer.pair());
+            case DUPLICATE_NAME:
+                return String.format(DUPLICATE_ERROR_MSG, tokenizer.name());
+            default:
+                return FORMAT_ERROR_MSG;
+        }
+    }
+
+    /**
+     * Formats one instance as a line of <code>.tsd</code> data, without its line terminator.
+     *
+     * @param columns the instances
+     * @param index   the index of the instance to format
+     * @return the instance as it would appear in a <code>.tsd</code> file
+     */
+    static String lineOf(ColumnarDataSet columns, int index) {
+        return columns.getName(index) + "\t" + columns.getLabel(index) + "\t"
+               + coordinateOf(columns.getX(index)) + "," + coordinateOf(columns.getY(index));
+    }
+
+    static String coordinateOf(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15)
+            return Long.toString((long) value);
+        return Double.toString(value);
+    }
+
+    /**
+     * Appends instances that were processed separately, such as one range of a file parsed in parallel, rejecting
+     * names that are already present.
+     *
+     * @param columns     the separately processed instances
+     * @param lineNumbers the line number of each instance, relative to the start of its range
+     * @param rangeErrors the errors found while processing the range, with relative line numbers
+     * @param lineOffset  the number of lines preceding the range
+     */
+    void addProcessed(ColumnarDataSet columns, int[] lineNumbers, List<LineError> rangeErrors, int lineOffset) {
+        spatialIndex = null;
+        for (int i = 0; i < columns.size(); i++) {
+            String name = columns.getName(i);
+            if (data.indexOf(name) >= 0)
+                errors.add(new LineError(lineOffset + lineNumbers[i], String.format(DUPLICATE_ERROR_MSG, name)));
+            else
+                data.add(name, columns.getLabel(i), columns.getX(i), columns.getY(i));
+        }
+        for (LineError error : rangeErrors)
+            errors.add(new LineError(lineOffset + error.getLineNumber(), error.getMessage()));
+    }
+
+    /**
+     * Copies the processed data into a new {@link DataSet}, which algorithms are free to modify. The dataset indexes its
+     * locations only if an algorithm asks it to.
+     *
+     * @return a dataset holding the processed instances
+     */
+    DataSet toDataSet() {
+        return new DataSet(data.copy());
+    }
+
+    /**
+     * Finds the instance shown on the chart nearest to a location of it, such as the one under the mouse, among those
+     * lying within the given distances of the location along either axis. Distances are measured in units of those, so
+     * that the search area looks round on the chart whatever the scales of its axes.
+     *
+     * @param maxDx how far from the location an instance may lie along the x axis
+     * @param maxDy how far from the location an instance may lie along the y axis
+     * @return the index of the instance, or -1 if no instance on the chart is that close
+     */
+    int shownInstanceNear(double x, double y, double maxDx, double maxDy) {
+        if (plottedChart == null && runChart == null)
+            return -1;
+        ColumnarDataSet shown   = runView == null ? data : runView;
+        int             nearest = -1;
+        double          best    = 1;
+        for (int index : getSpatialIndex().range(x - maxDx, y - maxDy, x + maxDx, y + maxDy)) {
+            if (index >= shown.size() || shown.getLabelCode(index) == ColumnarDataSet.NO_LABEL)
+                continue;
+            double dx       = (data.getX(index) - x) / maxDx;
+            double dy       = (data.getY(index) - y) / maxDy;
+            double distance = dx * dx + dy * dy;
+            if (distance <= best) {
+                best = distance;
+                nearest = index;
+            }
+        }
+        return nearest;
+    }
+
+    /** @return the label the chart shows for an instance, which is the one of the run on the chart if there is one */
+    String shownLabel(int index) {
+        return runView == null ? data.getLabel(index) : runView.getLabel(index);
+    }
+
+    /**
+     * Exports the data to the specified 2-D chart, remembering the point of every instance so that later edits can
+     * patch the chart instead of redrawing it.
      *
      * @param chart the specified chart
      */
     void toChartData(LineChart<Number, Number> chart) {
-        Set<String> labels = new HashSet<>(dataLabels.values());
-        for (String label : labels) {
-            LineChart.Series<Number, Number> series = new LineChart.Series<>();
-            series.setName(label);
-            dataLabels.entrySet().stream().filter(entry -> entry.getValue().equals(label)).forEach(entry -> {
-                Point2D point = dataPoints.get(entry.getKey());
-                LineChart.Data<Number, Number> data = new LineChart.Data<>(point.getX(), point.getY());
-                series.getData().add(data);
-            });
-            chart.getData().add(series);
-            for (LineChart.Data<Number, Number> data: series.getData()) {
-                Tooltip.install(data.getNode(), new Tooltip(label));
-                data.getNode().getStyleClass().add("data");
+        forgetRun();
+        plottedPoints = new ArrayList<>(data.size());
+        plottedSeries = plot(chart, data, plottedPoints);
+        plottedChart = chart;
+    }
+
+    /** @return whether the processed data is on a chart that {@link #processEdit} keeps up to date */
+    boolean isPlotted() {
+        return plottedChart != null;
+    }
+
+    /** Stops patching the chart the processed data was exported to, typically because it has been cleared. */
+    void forgetChart() {
+        plottedChart = null;
+        plottedPoints = null;
+        plottedSeries = null;
+        forgetRun();
+    }
+
+    private void forgetRun() {
+        runChart = null;
+        runView = null;
+        runPoints = null;
+        runSeries = null;
+    }
+
+    /**
+     * Exports the view a running algorithm is shown through to the specified 2-D chart, leaving the processed data
+     * untouched, and remembers the point of every instance so that later label changes can be patched in.
+     *
+     * @param chart the specified chart
+     * @param view  the copy of the dataset of the run that its label changes are applied to
+     */
+    void toRunChart(LineChart<Number, Number> chart, ColumnarDataSet view) {
+        forgetChart();
+        runPoints = new ArrayList<>(view.size());
+        runSeries = plot(chart, view, runPoints);
+        runView = view;
+        runChart = chart;
+    }
+
+    /**
+     * Applies the label changes of a running algorithm to its view, and moves the points that changed to the series of
+     * their new labels. Every series that changes loses and gains its points in one call each. Removing them walks the
+     * whole series, as the chart does again for every change to a series, so a frame costs time linear in the points
+     * of the series it touches rather than in the points it moves; removing points one at a time would only repeat that
+     * walk for each of them. What a frame saves is the creation of a node for every point, which is the bulk of a
+     * redraw. Once a large share of the points moves, redrawing the chart is cheaper than moving them.
+     *
+     * @param view  the copy of the dataset of the run
+     * @param delta the label changes since the last frame
+     * @return whether the chart was patched; if not, it must be redrawn with {@link #toRunChart}, since the view has
+     *         been updated either way
+     */
+    boolean patchRunChart(ColumnarDataSet view, LabelDelta delta) {
+        if (runChart == null || runView != view || delta.size() > view.size() / MAX_PATCHED_SHARE) {
+            delta.applyTo(view);
+            return false;
+        }
+        int[] previous = new int[delta.size()];
+        for (int change = 0; change < delta.size(); change++)
+            previous[change] = view.getLabelCode(delta.getIndex(change));
+        delta.applyTo(view);
+        while (runSeries.size() < view.getLabelDictionary().size())
+            runSeries.add(seriesOf(view.labelOf(runSeries.size())));
+        List<Set<LineChart.Data<Number, Number>>>  removed = new ArrayList<>(runSeries.size());
+        List<List<LineChart.Data<Number, Number>>> added   = new ArrayList<>(runSeries.size());
+        for (int code = 0; code < runSeries.size(); code++) {
+            removed.add(new HashSet<>());
+            added.add(new ArrayList<>());
+        }
+        for (int change = 0; change < delta.size(); change++) {
+            int index = delta.getIndex(change);
+            int code  = delta.getCode(change);
+            if (code == previous[change])
+                continue;
+            if (previous[change] != ColumnarDataSet.NO_LABEL)
+                removed.get(previous[change]).add(runPoints.get(index));
+            LineChart.Data<Number, Number> point = new LineChart.Data<>(view.getX(index), view.getY(index));
+            runPoints.set(index, point);
+            if (code != ColumnarDataSet.NO_LABEL)
+                added.get(code).add(point);
+        }
+        for (int code = 0; code < runSeries.size(); code++) {
+            LineChart.Series<Number, Number> series = runSeries.get(code);
+            if (removed.get(code).isEmpty())
+                continue;
+            series.getData().removeAll(removed.get(code));
+            if (series.getData().isEmpty()) {
+                runChart.getData().remove(series);
+                runSeries.set(code, seriesOf(view.labelOf(code)));
             }
         }
+        for (int code = 0; code < runSeries.size(); code++) {
+            LineChart.Series<Number, Number> series = runSeries.get(code);
+            if (added.get(code).isEmpty())
+                continue;
+            if (series.getData().isEmpty())
+                runChart.getData().add(series);
+            series.getData().addAll(added.get(code));
+            for (LineChart.Data<Number, Number> point : added.get(code))
+                decorate(point);
+        }
+        return true;
+    }
+
+    private List<LineChart.Series<Number, Number>> plot(LineChart<Number, Number> chart, ColumnarDataSet columns,
+                                                        List<LineChart.Data<Number, Number>> points) {
+        List<String> labels = columns.getLabelDictionary();
+        List<LineChart.Series<Number, Number>> seriesByCode = new ArrayList<>(labels.size());
+        for (String label : labels)
+            seriesByCode.add(seriesOf(label));
+        double[] xs         = columns.getXs();
+        double[] ys         = columns.getYs();
+        int[]    labelCodes = columns.getLabelCodes();
+        for (int i = 0; i < columns.size(); i++) {
+            LineChart.Data<Number, Number> point = new LineChart.Data<>(xs[i], ys[i]);
+            if (labelCodes[i] != ColumnarDataSet.NO_LABEL)
+                seriesByCode.get(labelCodes[i]).getData().add(point);
+            if (points != null)
+                points.add(point);
+        }
+        for (int code = 0; code < seriesByCode.size(); code++) {
+            LineChart.Series<Number, Number> series = seriesByCode.get(code);
+            if (series.getData().isEmpty())
+                continue;
+            chart.getData().add(series);
+            for (LineChart.Data<Number, Number> data: series.getData())
+                decorate(data);
+        }
         seriesInserted = !seriesInserted;
         algSeries = new LineChart.Series<>();
         chart.getData().add(algSeries);
         algSeries.getNode().setId("alg");
+        return seriesByCode;
+    }
+
+    private static LineChart.Series<Number, Number> seriesOf(String label) {
+        LineChart.Series<Number, Number> series = new LineChart.Series<>();
+        series.setName(label);
+        return series;
+    }
+
+    private static void decorate(LineChart.Data<Number, Number> point) {
+        point.getNode().getStyleClass().add("data");
     }
 
     void removeAlgorithmSeries(LineChart<Number, Number> chart){
@@ -126,35 +594,51 @@ final class TSDProcessor {
         chart.getYAxis().setAutoRanging(true);
     }
 
-    void processList(List<Integer> output){
-        double minX = Double.MAX_VALUE;
-        double maxX = Double.MIN_VALUE;
-        for(Point2D point: dataPoints.values()){
-            double currentX = point.getX();
-            if(currentX > maxX)
-                maxX = currentX;
-            if(currentX < minX)
-                minX = currentX;
+    /**
+     * Draws the line <code>ax + by = c</code> given by a classifier across the range of the data. A line with no
+     * <code>y</code> term is drawn upright across the range of the <code>y</code> coordinates instead, and one with
+     * neither term is not drawn.
+     *
+     * @param output the coefficients <code>a</code>, <code>b</code> and <code>c</code>
+     */
+    void processList(List<Double> output){
+        double minX = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        double[] xs = data.getXs();
+        double[] ys = data.getYs();
+        for(int i = 0; i < data.size(); i++){
+            minX = Math.min(minX, xs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxY = Math.max(maxY, ys[i]);
         }
         algSeries.getData().clear();
-        algSeries.getData().add(new LineChart.Data<>(minX, calculateY(output, minX)));
-        algSeries.getData().add(new LineChart.Data<>(maxX, calculateY(output, maxX)));
+        if(data.size() == 0 || (output.get(0) == 0 && output.get(1) == 0))
+            return;
+        if(output.get(1) == 0){
+            double x = output.get(2) / output.get(0);
+            algSeries.getData().add(new LineChart.Data<>(x, minY));
+            algSeries.getData().add(new LineChart.Data<>(x, maxY));
+        }
+        else{
+            algSeries.getData().add(new LineChart.Data<>(minX, calculateY(output, minX)));
+            algSeries.getData().add(new LineChart.Data<>(maxX, calculateY(output, maxX)));
+        }
         for(LineChart.Data<Number,Number> data: algSeries.getData()){
             data.getNode().setVisible(false);
         }
     }
-    private double calculateY(List<Integer> output, double x){
-        return ((1.0)*output.get(2)-output.get(0)*x)/(1.0*output.get(1));
+    private double calculateY(List<Double> output, double x){
+        return (output.get(2) - output.get(0) * x) / output.get(1);
     }
 
     void clear() {
-        dataPoints.clear();
-        dataLabels.clear();
-    }
-
-    private String checkedname(String name) throws InvalidDataNameException {
-        if (!name.startsWith("@"))
-            throw new InvalidDataNameException(name);
-        return name;
+        data.clear();
+        spatialIndex = null;
+        errors.clear();
+        seriesInserted = false;
+        forgetChart();
     }
 }
@@ -0,0 +1,206 @@
+package dataprocessors;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads a <code>.tsd</code> file by memory-mapping it and handing every line to a {@link LineHandler} as soon as its
+ * terminating newline is found. The file is never held in memory as one {@link String}; only the line currently being
+ * handled is decoded. Files larger than a single mapping are read through consecutive windows, each starting at the
+ * beginning of the line that the previous window cut off.
+ * <p>
+ * A file can also be split into byte ranges that start and end on line boundaries, so that the ranges can be read
+ * independently of each other. A reader given a {@link LineIndex} records where every line it reads starts.
+ * <p>
+ * A gzip-compressed file, recognized by its <code>.gz</code> extension, cannot be mapped or split. It is instead
+ * decompressed as a stream and split into lines as the decompressed bytes arrive, the same way a mapped file is.
+ */
+final class TSDReader {
+
+    /** Receives the lines of the file in order, numbered from 1. */
+    @FunctionalInterface
+    interface LineHandler {
+        void handle(String line, int lineNumber) throws Exception;
+    }
+
+    private static final long   MAX_WINDOW_SIZE  = Integer.MAX_VALUE;
+    private static final byte   NEW_LINE         = '\n';
+    private static final byte   CARRIAGE_RETURN  = '\r';
+    private static final String LINE_TOO_LONG    = "Line %d does not fit in a single mapped window";
+    private static final int    PROBE_SIZE       = 4096;
+    private static final int    BUFFER_SIZE      = 1 << 16;
+    private static final String GZIP_EXTENSION   = ".gz";
+
+    private final Path      dataFilePath;
+    private final LineIndex lineIndex;
+    private byte[]          lineBytes;
+
+    TSDReader(Path dataFilePath) {
+        this(dataFilePath, null);
+    }
+
+    /**
+     * @param dataFilePath the file to read
+     * @param lineIndex    the index to record the lines in as they are read, or <code>null</code>
+     */
+    TSDReader(Path dataFilePath, LineIndex lineIndex) {
+        this.dataFilePath = dataFilePath;
+        this.lineIndex = lineIndex;
+        this.lineBytes = new byte[256];
+    }
+
+    /**
+     * Maps the file and passes each of its lines to the handler.
+     *
+     * @param handler the handler receiving the lines
+     * @return the number of lines in the file
+     * @throws Exception if the file cannot be read, or if the handler rejects a line
+     */
+    int read(LineHandler handler) throws Exception {
+        return isCompressed(dataFilePath) ? readCompressed(handler) : read(0, Long.MAX_VALUE, handler);
+    }
+
+    static boolean isCompressed(Path dataFilePath) {
+        return dataFilePath.getFileName().toString().toLowerCase().endsWith(GZIP_EXTENSION);
+    }
+
+    private int readCompressed(LineHandler handler) throws Exception {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(dataFilePath), BUFFER_SIZE)) {
+            byte[] buffer     = new byte[BUFFER_SIZE];
+            int    length     = 0;
+            int    lineNumber = 0;
+            int    read;
+            while ((read = in.read(buffer, length, buffer.length - length)) >= 0) {
+                int end       = length + read;
+                int lineStart = 0;
+                for (int i = length; i < end; i++) {
+                    if (buffer[i] == NEW_LINE) {
+                        handler.handle(decode(buffer, lineStart, i), ++lineNumber);
+                        lineStart = i + 1;
+                    }
+                }
+                length = end - lineStart;
+                System.arraycopy(buffer, lineStart, buffer, 0, length);
+                if (length == buffer.length)
+                    buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+            }
+            if (length > 0)
+                handler.handle(decode(buffer, 0, length), ++lineNumber);
+            return lineNumber;
+        }
+    }
+
+    /**
+     * Maps the given byte range of the file and passes each of its lines to the handler, numbering them from 1 within
+     * the range. The range should start at the beginning of a line and end just after a newline or at the end of the
+     * file, as the ranges given by {@link #lineAlignedRanges(int)} do.
+     *
+     * @param start   the offset of the first byte of the range
+     * @param end     the offset just past the last byte of the range, clipped to the size of the file
+     * @param handler the handler receiving the lines
+     * @return the number of lines in the range
+     * @throws Exception if the file cannot be read, or if the handler rejects a line
+     */
+    int read(long start, long end, LineHandler handler) throws Exception {
+        try (FileChannel channel = FileChannel.open(dataFilePath, StandardOpenOption.READ)) {
+            long size       = Math.min(end, channel.size());
+            long position   = start;
+            int  lineNumber = 0;
+            while (position < size) {
+                long             windowSize = Math.min(size - position, MAX_WINDOW_SIZE);
+                boolean          lastWindow = position + windowSize == size;
+                MappedByteBuffer window     = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+                int              limit      = window.limit();
+                int              lineStart  = 0;
+                for (int i = 0; i < limit; i++) {
+                    if (window.get(i) == NEW_LINE) {
+                        if (lineIndex != null)
+                            lineIndex.add(position + lineStart);
+                        handler.handle(decode(window, lineStart, i), ++lineNumber);
+                        lineStart = i + 1;
+                    }
+                }
+                if (lastWindow) {
+                    if (lineStart < limit) {
+                        if (lineIndex != null)
+                            lineIndex.add(position + lineStart);
+                        handler.handle(decode(window, lineStart, limit), ++lineNumber);
+                    }
+                    position = size;
+                } else {
+                    if (lineStart == 0)
+                        throw new IOException(String.format(LINE_TOO_LONG, lineNumber + 1));
+                    position += lineStart;
+                }
+            }
+            if (lineIndex != null)
+                lineIndex.setEnd(Math.max(size, start));
+            return lineNumber;
+        }
+    }
+
+    /**
+     * Splits the file into at most the given number of byte ranges of roughly equal size, each of which starts at the
+     * beginning of a line.
+     *
+     * @param rangeCount the number of ranges wanted
+     * @return the offsets at which the ranges start, followed by the size of the file
+     * @throws IOException if the file cannot be read
+     */
+    long[] lineAlignedRanges(int rangeCount) throws IOException {
+        try (FileChannel channel = FileChannel.open(dataFilePath, StandardOpenOption.READ)) {
+            long       size   = channel.size();
+            long[]     bounds = new long[rangeCount + 1];
+            int        count  = 1;
+            ByteBuffer probe  = ByteBuffer.allocate(PROBE_SIZE);
+            for (int i = 1; i < rangeCount; i++) {
+                long boundary = lineStartAtOrAfter(channel, Math.max(size / rangeCount * i, bounds[count - 1]), size, probe);
+                if (boundary > bounds[count - 1] && boundary < size)
+                    bounds[count++] = boundary;
+            }
+            bounds[count++] = size;
+            return Arrays.copyOf(bounds, count);
+        }
+    }
+
+    private static long lineStartAtOrAfter(FileChannel channel, long position, long size, ByteBuffer probe) throws IOException {
+        if (position == 0)
+            return 0;
+        for (long offset = position - 1; offset < size; offset += probe.position()) {
+            probe.clear();
+            if (channel.read(probe, offset) <= 0)
+                break;
+            for (int i = 0; i < probe.position(); i++) {
+                if (probe.get(i) == NEW_LINE)
+                    return offset + i + 1;
+            }
+        }
+        return size;
+    }
+
+    private static String decode(byte[] bytes, int start, int end) {
+        if (end > start && bytes[end - 1] == CARRIAGE_RETURN)
+            end--;
+        return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    private String decode(MappedByteBuffer window, int start, int end) {
+        if (end > start && window.get(end - 1) == CARRIAGE_RETURN)
+            end--;
+        int length = end - start;
+        if (length > lineBytes.length)
+            lineBytes = new byte[Math.max(length, 2 * lineBytes.length)];
+        window.position(start);
+        window.get(lineBytes, 0, length);
+        return new String(lineBytes, 0, length, StandardCharsets.UTF_8);
+    }
+}
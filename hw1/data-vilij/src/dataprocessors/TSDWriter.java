@@ -0,0 +1,112 @@
+package dataprocessors;
+
+import data.ColumnarDataSet;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a {@link ColumnarDataSet} to a data file without ever leaving a partly written file in its place. Records are
+ * encoded straight from the columns into a buffered stream over a temporary file in the same directory, which then
+ * replaces the target in a single atomic move, keeping the permissions of the target. If anything fails along the way, the temporary file is deleted and the
+ * target is left as it was. A target with a <code>.gz</code> extension is written as gzip-compressed text.
+ */
+final class TSDWriter {
+
+    private static final int    BUFFER_SIZE = 1 << 16;
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final char   TAB         = '\t';
+    private static final char   COMMA       = ',';
+
+    private TSDWriter() {}
+
+    /**
+     * Writes the instances of a dataset in the format given by the extension of the file.
+     *
+     * @param columns      the instances to write
+     * @param dataFilePath the file to write them to, which is replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    static void write(ColumnarDataSet columns, Path dataFilePath) throws IOException {
+        Path target = dataFilePath.toAbsolutePath();
+        Path temp   = createTempFile(target);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+                 OutputStream out = Channels.newOutputStream(channel)) {
+                if (TSDBinary.isBinary(target)) {
+                    TSDBinary.write(columns, out);
+                } else if (TSDReader.isCompressed(target)) {
+                    GZIPOutputStream compressed = new GZIPOutputStream(out, BUFFER_SIZE);
+                    writeText(columns, compressed);
+                    compressed.finish();
+                } else {
+                    writeText(columns, out);
+                }
+                channel.force(true);
+            }
+            copyPermissions(target, temp);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Creates the temporary file next to the target with the permissions any new file gets, rather than through
+     * {@link Files#createTempFile}, which makes it readable by its owner only.
+     */
+    private static Path createTempFile(Path target) throws IOException {
+        while (true) {
+            String name = "." + target.getFileName() + "." + Long.toUnsignedString(ThreadLocalRandom.current().nextLong());
+            try {
+                return Files.createFile(target.resolveSibling(name + TEMP_SUFFIX));
+            } catch (FileAlreadyExistsException ignored) { }
+        }
+    }
+
+    /** Gives the temporary file the POSIX permissions of the target it replaces, if there is one. */
+    private static void copyPermissions(Path target, Path temp) throws IOException {
+        if (Files.exists(target) && Files.getFileStore(temp).supportsFileAttributeView(PosixFileAttributeView.class))
+            Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(target));
+    }
+
+    /**
+     * Writes the instances of a dataset as <code>.tsd</code> lines to a stream, which is left open. Each field is
+     * written as it is read from the columns, so no line is ever built as a whole.
+     *
+     * @param columns the instances to write
+     * @param out     the stream to write them to
+     * @throws IOException if the stream cannot be written
+     */
+    static void writeText(ColumnarDataSet columns, OutputStream out) throws IOException {
+        Writer writer    = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        String separator = System.lineSeparator();
+        for (int i = 0; i < columns.size(); i++) {
+            writer.write(columns.getName(i));
+            writer.write(TAB);
+            writer.write(String.valueOf(columns.getLabel(i)));
+            writer.write(TAB);
+            writer.write(TSDProcessor.coordinateOf(columns.getX(i)));
+            writer.write(COMMA);
+            writer.write(TSDProcessor.coordinateOf(columns.getY(i)));
+            writer.write(separator);
+        }
+        writer.flush();
+    }
+}
@@ -0,0 +1,72 @@
+package execution;
+
+import algorithmbase.Algorithm;
+import data.SnapshotChannel;
+
+/**
+ * A run of an algorithm together with the runner showing its updates and the controller stepping through them, which
+ * can be cancelled from any thread.
+ * <p>
+ * Each side ends the other when it ends, however it ends: when the algorithm returns or throws, its channel is closed so
+ * the runner sees the end of the run, and when the runner returns or is interrupted, the algorithm is asked to stop.
+ * Neither is ever left waiting for the other.
+ */
+public final class AlgorithmRun {
+
+    private final Algorithm          algorithm;
+    private final SnapshotChannel<?> channel;
+    private final StepController     stepController;
+
+    /**
+     * @param algorithm      the algorithm
+     * @param channel        the channel the algorithm hands its updates to the runner through
+     * @param stepController the controller the runner waits on between steps
+     */
+    public AlgorithmRun(Algorithm algorithm, SnapshotChannel<?> channel, StepController stepController) {
+        this.algorithm = algorithm;
+        this.channel = channel;
+        this.stepController = stepController;
+    }
+
+    public Algorithm getAlgorithm() { return algorithm; }
+
+    public StepController getStepController() { return stepController; }
+
+    /**
+     * Starts the algorithm on the compute pool of an executor and the runner beside it.
+     *
+     * @param executor the executor
+     * @param runner   the runner taking the updates of the algorithm from its channel
+     * @return this run
+     */
+    public AlgorithmRun start(AppExecutor executor, Runnable runner) {
+        executor.runAlgorithm(() -> {
+            try {
+                algorithm.run();
+            } finally {
+                channel.close();
+            }
+        });
+        executor.runRunner(() -> {
+            try {
+                runner.run();
+            } finally {
+                algorithm.stop();
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Asks the algorithm to stop after the iteration under way, drops the updates not yet shown and releases a runner
+     * waiting for a step, so that the runner sees the end of the run next.
+     */
+    public void cancel() {
+        algorithm.stop();
+        channel.cancel();
+        stepController.cancel();
+    }
+
+    /** @return whether the run was cancelled */
+    public boolean isCancelled() { return channel.isCancelled(); }
+}
@@ -0,0 +1,113 @@
+package execution;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the background work of the application on two pools of named daemon threads, instead of a new thread per run.
+ * Algorithms go to a compute pool bounded by the number of processors, and further runs wait for a thread. Runners,
+ * which mostly wait for the algorithm and for the JavaFX thread, go to a pool that grows as needed and lets idle
+ * threads go after a while.
+ * <p>
+ * Since every thread is a daemon, none of them keeps the JVM alive once the window is closed, and {@link #shutdown()}
+ * interrupts whatever is still running when the application stops.
+ */
+public final class AppExecutor {
+
+    /** How long an idle runner thread is kept before it ends. */
+    private static final long RUNNER_KEEP_ALIVE_SECONDS = 30;
+
+    /** How long {@link #shutdown()} waits for interrupted work to end. */
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 500;
+
+    /** Names the threads of a pool after it, and makes them daemons that report what they throw. */
+    private static final class NamedThreadFactory implements ThreadFactory {
+
+        private final String        prefix;
+        private final AtomicInteger created = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, prefix + created.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setUncaughtExceptionHandler((t, e) -> e.printStackTrace());
+            return thread;
+        }
+    }
+
+    private final ThreadPoolExecutor algorithms;
+    private final ThreadPoolExecutor runners;
+
+    public AppExecutor() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param algorithmThreads the most algorithms that run at once
+     */
+    public AppExecutor(int algorithmThreads) {
+        int threads = Math.max(1, algorithmThreads);
+        algorithms = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                                            new NamedThreadFactory("vilij-algorithm-"));
+        runners = new ThreadPoolExecutor(0, Integer.MAX_VALUE, RUNNER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                                         new SynchronousQueue<>(), new NamedThreadFactory("vilij-runner-"));
+    }
+
+    /**
+     * Starts an algorithm on the compute pool, or queues it until a thread is free.
+     *
+     * @param algorithm the algorithm to run
+     */
+    public void runAlgorithm(Runnable algorithm) {
+        algorithms.execute(algorithm);
+    }
+
+    /**
+     * Starts a runner, or any other task that mostly waits, on a thread of its own.
+     *
+     * @param runner the runner
+     */
+    public void runRunner(Runnable runner) {
+        runners.execute(runner);
+    }
+
+    /** @return the number of algorithms running right now */
+    public int getActiveAlgorithms() { return algorithms.getActiveCount(); }
+
+    /** @return the number of algorithms waiting for a thread */
+    public int getQueuedAlgorithms() { return algorithms.getQueue().size(); }
+
+    /** @return the number of runners running right now */
+    public int getActiveRunners() { return runners.getActiveCount(); }
+
+    /** @return the number of algorithms and runners that have ended, normally or not */
+    public long getCompletedTasks() { return algorithms.getCompletedTaskCount() + runners.getCompletedTaskCount(); }
+
+    public boolean isShutdown() { return algorithms.isShutdown(); }
+
+    /**
+     * Refuses new work, interrupts the work still running, and waits briefly for it to end.
+     *
+     * @return whether everything ended within the wait
+     */
+    public boolean shutdown() {
+        algorithms.shutdownNow();
+        runners.shutdownNow();
+        try {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SHUTDOWN_TIMEOUT_MILLIS);
+            return algorithms.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)
+                   && runners.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package execution;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decides when the runner of one run may show its next update. A run either runs freely, or steps: after every update
+ * it shows, the runner waits in {@link #awaitStep()} until it is allowed a number of further updates. The controller
+ * has a lock and condition of its own, so pausing and stepping never contend with anything outside the run.
+ * <p>
+ * A run can also be told to run to its end without showing the updates in between, for when only the final state is
+ * of interest; the runner then only shows the last update.
+ */
+public final class StepController {
+
+    private final ReentrantLock lock     = new ReentrantLock();
+    private final Condition     released = lock.newCondition();
+    private final Runnable      onPause;
+    private boolean             running;   // whether the runner goes on without waiting
+    private boolean             skipping;  // whether updates before the last are not shown
+    private boolean             waiting;   // whether the runner is waiting for a step
+    private boolean             cancelled;
+    private int                 steps;     // the updates the runner may still show before it waits
+
+    /**
+     * @param running whether the run starts running freely, rather than waiting after its first update
+     * @param onPause called on the runner's thread whenever it starts waiting for a step, or <code>null</code>
+     */
+    public StepController(boolean running, Runnable onPause) {
+        this.running = running;
+        this.onPause = onPause;
+    }
+
+    public StepController(boolean running) {
+        this(running, null);
+    }
+
+    /**
+     * Called by the runner after it has shown an update: waits, if the run is stepping and no step is left, until the
+     * run is stepped, resumed or cancelled.
+     *
+     * @return whether the runner may go on; <code>false</code> once the run is cancelled
+     * @throws InterruptedException if the runner is interrupted while waiting
+     */
+    public boolean awaitStep() throws InterruptedException {
+        boolean paused;
+        lock.lock();
+        try {
+            if (steps > 0)
+                steps--;
+            paused = !running && steps == 0 && !cancelled;
+            waiting = paused;
+        } finally {
+            lock.unlock();
+        }
+        if (paused && onPause != null)
+            onPause.run();
+        lock.lock();
+        try {
+            while (!running && steps == 0 && !cancelled)
+                released.await();
+            return !cancelled;
+        } finally {
+            waiting = false;
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lets the runner show a number of further updates before it waits again.
+     *
+     * @param updates the number of updates, of which at least one is allowed
+     */
+    public void step(int updates) {
+        lock.lock();
+        try {
+            steps += Math.max(1, updates);
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Makes the runner wait after the update it shows next. */
+    public void pause() {
+        lock.lock();
+        try {
+            running = false;
+            skipping = false;
+            steps = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Lets the run go on freely, showing every update. */
+    public void resume() {
+        release(false);
+    }
+
+    /** Lets the run go on freely to its end, showing only its last update. */
+    public void runToEnd() {
+        release(true);
+    }
+
+    /** Ends the waiting for good: the runner is released and told not to go on. */
+    public void cancel() {
+        lock.lock();
+        try {
+            cancelled = true;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return whether the run goes on without waiting for steps */
+    public boolean isRunning() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return whether the updates before the last are not to be shown */
+    public boolean isSkipping() {
+        lock.lock();
+        try {
+            return skipping;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return whether the runner is waiting for a step right now */
+    public boolean isPaused() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isCancelled() {
+        lock.lock();
+        try {
+            return cancelled;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(boolean skip) {
+        lock.lock();
+        try {
+            running = true;
+            skipping = skip;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
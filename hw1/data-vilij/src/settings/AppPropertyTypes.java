@@ -22,12 +22,14 @@ public enum AppPropertyTypes {
     SCREENSHOT_ICON, RUN_ICON, COG_ICON, CONTINUE_ICON,
 
     /* tooltips for user interface buttons */
-    SCREENSHOT_TOOLTIP,
+    SCREENSHOT_TOOLTIP, RUN_TOOLTIP,
 
     /* messages */
-    DATA_FORMAT_ERROR_2, SCREENSHOT_ERROR_TITLE, SCREENSHOT_ERROR_MSG, TOO_MUCH_DATA, MANY_LINES_1, MANY_LINES_2, ERROR_THIS_LINE, CHOOSE_CONFIGURATION,
+    DATA_FORMAT_ERROR_2, SCREENSHOT_ERROR_TITLE, SCREENSHOT_ERROR_MSG, ERROR_THIS_LINE, CHOOSE_CONFIGURATION,
     NO_CONFIG, META_1, META_2, META_3, META_4, THE_USER, ALGO_RUNNING,
-    MAX_ITER, UPDATE_INTER, CONT, LABEL_NUM, SET_CONFIG,
+    MAX_ITER, UPDATE_INTER, CONT, MAX_SPEED, FRAME_RATE, LABEL_NUM, TOLERANCE, RESTARTS, SET_CONFIG,
+    RUN_STOPPED, RUN_ITERATIONS, STOP_MAX_ITERATIONS, STOP_CONVERGED, STOP_CENTROID_SHIFT, STOP_INERTIA_CHANGE, STOP_COMPLETE,
+    STOP_CANCELLED, STOP_RUN, RUN_CANCELLED,
 
     /* application-specific message titles */
     SAVE_UNSAVED_WORK_TITLE, EXIT_WHILE_RUNNING_WARNING,
@@ -38,5 +40,9 @@ public enum AppPropertyTypes {
 
     /* application-specific parameters */
     DATA_FILE_EXT,
-    DATA_FILE_EXT_DESC
+    DATA_FILE_EXT_DESC,
+    BINARY_FILE_EXT,
+    BINARY_FILE_EXT_DESC,
+    COMPRESSED_FILE_EXT,
+    COMPRESSED_FILE_EXT_DESC
 }
@@ -2,15 +2,24 @@ package ui;
 
 import actions.AppActions;
 import algorithmbase.Algorithm;
+import algorithmbase.Clusterer;
 import components.RunConfiguration;
 import components.YesNoDialog;
 import data.*;
 import dataprocessors.AppData;
+import execution.AlgorithmRun;
+import execution.AppExecutor;
+import execution.StepController;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.geometry.Point2D;
 import javafx.scene.chart.LineChart;
 import javafx.scene.chart.NumberAxis;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
@@ -45,13 +54,17 @@ public final class AppUI extends UITemplate {
     private LineChart<Number, Number>    chart;          // the chart where data will be displayed
     private Button                       toggleButton;  // workspace button to display data on the chart
     private TextArea                     textArea;       // text area for new data input
+    private ListView<String>             dataView;       // read-only view of every line of a loaded data file
     private Label                        metaLabel;
+    private Label                        runLabel;       // how the last run of an algorithm ended
     private ComboBox<String>             comboBox;
     private Pane                         classificationSpace;
     private Pane                         clusteringSpace;
     private Pane                         algorithmSpace;
     private Class                        algorithmSelected;
+    private AlgorithmRun                 runStarted;
     private Button                       runButton;
+    private Button                       stopButton;     // cancels the run under way
     private Dialog                       runConfig;
     private VBox                         metaPane;
     private VBox                         runPane;
@@ -59,11 +72,13 @@ public final class AppUI extends UITemplate {
     private HashMap<String, RunConfiguration.ConfigInfo> configInfoHashMap;
     private NumberAxis xAxis;
     private NumberAxis yAxis;
-    private boolean                      algorithmPaused;
+    private Tooltip                      hoverTip;       // the label of the point under the mouse
     private boolean                      algorithmRunning;
     private ImageView runImage;
 
     private static final String SEPARATOR = "/";
+    private static final double DATA_VIEW_CELL_SIZE = 24;
+    private static final double HOVER_RADIUS = 6;        // how close to a point, in pixels, the mouse shows its label
     private String ssPath;
     private String runPath;
     private String cogPath;
@@ -74,6 +89,22 @@ public final class AppUI extends UITemplate {
     public TextArea getTextArea(){
         return textArea;
     }
+    /**
+     * Shows the lines of a loaded data file in place of the text area. The viewer only asks the list for the lines on
+     * screen, so the list can page them in from the file as they are scrolled to.
+     *
+     * @param lines the lines of the loaded file
+     */
+    public void showDataView(ObservableList<String> lines){
+        textArea.setVisible(false);
+        dataView.setItems(lines);
+        dataView.scrollTo(0);
+        dataView.setVisible(true);
+    }
+    public void hideDataView(){
+        dataView.setItems(FXCollections.observableArrayList());
+        dataView.setVisible(false);
+    }
     public Label getMetaLabel() { return metaLabel; }
     public ComboBox<String> getComboBox() { return comboBox; }
     public Button getSaveButton() { return saveButton; }
@@ -94,7 +125,6 @@ public final class AppUI extends UITemplate {
         configInfoHashMap = new HashMap<>();
         xAxis = new NumberAxis();
         yAxis = new NumberAxis();
-        algorithmPaused = false;
         algorithmRunning = false;
 
     }
@@ -139,6 +169,7 @@ public final class AppUI extends UITemplate {
     @Override
     public void clear() {
         textArea.clear();
+        hideDataView();
         saveButton.setDisable(true);
         scrnshotButton.setDisable(true);
         toggleButton.setText(manager.getPropertyValue(DONE.name()));
@@ -158,35 +189,31 @@ public final class AppUI extends UITemplate {
         hideClustering();
         hideMetaLabel();
         hideRunButton();
-    }
-
-    public boolean isAlgorithmPaused() {
-        return algorithmPaused;
-    }
-
-    public void setAlgorithmPaused(boolean algorithmPaused) {
-        this.algorithmPaused = algorithmPaused;
+        runLabel.setText("");
     }
 
     public void changeRunButton(int type){
-        runButton.setDisable(true);
         if(type == 0)
             runImage.setImage(new Image(getClass().getResourceAsStream(runPath)));
         else
             runImage.setImage(new Image(getClass().getResourceAsStream(continuePath)));
-        try {
-            Thread.sleep(500);
-        } catch (InterruptedException ignored) {
-
-        }
-        runButton.setDisable(false);
     }
 
-    private void continueAlgorithm(){
-        synchronized (applicationTemplate.manager){
-            algorithmPaused = false;
-            applicationTemplate.manager.notifyAll();
+    /**
+     * Goes on with a run that is stepping: a click shows the next update, a Shift-click resumes the run and a
+     * Ctrl-click runs it to its end, showing only the last update.
+     */
+    private void continueAlgorithm(MouseEvent e){
+        StepController stepController = runStarted.getStepController();
+        if(e.isShiftDown() || e.isShortcutDown()){
+            hideRunButton();
+            if(e.isShortcutDown())
+                stepController.runToEnd();
+            else
+                stepController.resume();
         }
+        else
+            stepController.step(1);
     }
 
     private void layout() {
@@ -199,50 +226,67 @@ public final class AppUI extends UITemplate {
 
         runImage = new ImageView(new Image(getClass().getResourceAsStream(runPath)));
         runButton = new Button(null, runImage);
+        runButton.setTooltip(new Tooltip(manager.getPropertyValue(RUN_TOOLTIP.name())));
         runButton.setOnMouseClicked(e -> {
-            if(algorithmPaused){
-                continueAlgorithm();
+            if(runStarted != null){
+                if(!runStarted.getStepController().isRunning())
+                    continueAlgorithm(e);
             }
             else {
                 if (!configInfoHashMap.containsKey(algorithmSelected.getSimpleName()))
                     applicationTemplate.getDialog(Dialog.DialogType.ERROR).show(manager.getPropertyValue(CHOOSE_CONFIGURATION.name()), manager.getPropertyValue(NO_CONFIG.name()));
                 else {
-                    DataSet dataSet = new DataSet();
-                    Scanner scanner = new Scanner(textArea.getText());
-                    while (scanner.hasNextLine()) {
-                        try {
-                            dataSet.addInstance(scanner.nextLine());
-                        } catch (DataSet.InvalidDataNameException e1) {
-                            e1.printStackTrace();
-                        }
-                    }
+                    DataSet dataSet = ((AppData)applicationTemplate.getDataComponent()).getDataSet();
                     algorithmRunning = true;
+                    runLabel.setText("");
                     RunConfiguration.ConfigInfo c = configInfoHashMap.get(algorithmSelected.getSimpleName());
+                    AppExecutor executor = ((DataVisualizer)applicationTemplate).getExecutor();
+                    StepController stepController = new StepController(c.isContinuous(), () -> Platform.runLater(() -> changeRunButton(1)));
                     try {
                         if(algorithmSelected.getSuperclass().equals(Class.forName("algorithmbase.Clusterer"))) {
-                            DataCollector dataCollector = new DataCollector();
-                            Algorithm algorithm = (Algorithm)algorithmSelected.getConstructors()[0].newInstance(dataCollector, dataSet, c.getMaxIterations(), c.getUpdateInterval(), ((RunConfiguration.ClusteringConfig)c).getLabelNumber());
-                            new Thread(algorithm).start();
-                            new Thread(new DataRunner(dataCollector, applicationTemplate, c.isContinuous())).start();
+                            DataCollector dataCollector = new DataCollector(c.isContinuous() && c.isMaxSpeed());
+                            Clusterer algorithm = (Clusterer)algorithmSelected.getConstructors()[0].newInstance(dataCollector, dataSet, c.getMaxIterations(), c.getUpdateInterval(), ((RunConfiguration.ClusteringConfig)c).getLabelNumber());
+                            algorithm.setTolerance(((RunConfiguration.ClusteringConfig)c).getTolerance());
+                            if(algorithm instanceof Clusterer.Restartable)
+                                ((Clusterer.Restartable)algorithm).setRestarts(((RunConfiguration.ClusteringConfig)c).getRestarts());
+                            DataRunner dataRunner = new DataRunner(dataCollector, dataSet.getColumns().copy(), applicationTemplate, stepController, c.getFrameRate());
+                            runStarted = new AlgorithmRun(algorithm, dataCollector, stepController).start(executor, dataRunner);
                         }
                         else{
-                            ListCollector listCollector = new ListCollector();
+                            ListCollector listCollector = new ListCollector(c.isContinuous() && c.isMaxSpeed());
                             Algorithm algorithm = (Algorithm)algorithmSelected.getConstructors()[0].newInstance(listCollector, dataSet, c.getMaxIterations(), c.getUpdateInterval());
-                            new Thread(algorithm).start();
-                            new Thread(new ListRunner(listCollector, applicationTemplate, c.isContinuous())).start();
+                            runStarted = new AlgorithmRun(algorithm, listCollector, stepController).start(executor, new ListRunner(listCollector, applicationTemplate, stepController, c.getFrameRate()));
                         }
+                        showStopButton();
                     } catch (Exception e1) { e1.printStackTrace(); }
                 }
             }
         });
 
+        stopButton = new Button(manager.getPropertyValue(STOP_RUN.name()));
+        stopButton.setOnAction(e -> {
+            if(runStarted != null)
+                runStarted.cancel();
+        });
+
         textArea = new TextArea();
         textArea.setPrefHeight(windowHeight/3);
         textArea.setVisible(false);
+        textArea.managedProperty().bind(textArea.visibleProperty());
+
+        dataView = new ListView<>();
+        dataView.setPrefHeight(windowHeight/3);
+        dataView.setFixedCellSize(DATA_VIEW_CELL_SIZE);
+        dataView.setVisible(false);
+        dataView.managedProperty().bind(dataView.visibleProperty());
 
         metaLabel = new Label();
         metaLabel.setWrapText(true);
-        metaPane = new VBox(metaLabel, new Separator());
+        runLabel = new Label();
+        runLabel.setWrapText(true);
+        runLabel.visibleProperty().bind(runLabel.textProperty().isEmpty().not());
+        runLabel.managedProperty().bind(runLabel.visibleProperty());
+        metaPane = new VBox(metaLabel, runLabel, new Separator());
         comboBox = new ComboBox<>();
         toggleButton = new Button(manager.getPropertyValue(DONE.name()));
         toggleButton.setVisible(false);
@@ -297,7 +341,7 @@ public final class AppUI extends UITemplate {
 
         algorithmSpace = new VBox();
 
-        dataSpace = new VBox(textArea, toggleButton, new Separator());
+        dataSpace = new VBox(textArea, dataView, toggleButton, new Separator());
         runPane = new VBox();
         Pane userSpace = new VBox(dataSpace, algorithmSpace, runPane);
 
@@ -306,11 +350,39 @@ public final class AppUI extends UITemplate {
         chart.setTitle(manager.getPropertyValue(DATA_VISUALIZATION.name()));
         chart.setMinSize(windowWidth*0.65, windowHeight*0.7);
         chart.setMaxHeight(windowHeight*0.7);
+        hoverTip = new Tooltip();
+        chart.setOnMouseMoved(this::showHoveredLabel);
+        chart.setOnMouseExited(e -> hoverTip.hide());
         workspace.getChildren().addAll(userSpace, chart);
         appPane.getChildren().add(workspace);
         appPane.getStylesheets().add(manager.getPropertyValue(CSS_PATH.name()));
     }
 
+    /**
+     * Shows the label of the point under the mouse next to it, or hides the label shown if the mouse has left the
+     * point. A single tooltip serves the whole chart, so the points do not need one each.
+     */
+    private void showHoveredLabel(MouseEvent e) {
+        Point2D onX = xAxis.sceneToLocal(e.getSceneX(), e.getSceneY());
+        Point2D onY = yAxis.sceneToLocal(e.getSceneX(), e.getSceneY());
+        double  x   = xAxis.getValueForDisplay(onX.getX()).doubleValue();
+        double  y   = yAxis.getValueForDisplay(onY.getY()).doubleValue();
+        double  dx  = Math.abs(xAxis.getValueForDisplay(onX.getX() + HOVER_RADIUS).doubleValue() - x);
+        double  dy  = Math.abs(yAxis.getValueForDisplay(onY.getY() + HOVER_RADIUS).doubleValue() - y);
+        String label = ((AppData)applicationTemplate.getDataComponent()).labelNear(x, y, dx, dy);
+        if(label == null){
+            hoverTip.hide();
+            return;
+        }
+        hoverTip.setText(label);
+        if(hoverTip.isShowing()){
+            hoverTip.setAnchorX(e.getScreenX() + HOVER_RADIUS);
+            hoverTip.setAnchorY(e.getScreenY() + HOVER_RADIUS);
+        }
+        else
+            hoverTip.show(chart, e.getScreenX() + HOVER_RADIUS, e.getScreenY() + HOVER_RADIUS);
+    }
+
     private HBox createAlgorithmOption(Class algorithm, ToggleGroup group, boolean isClassification){
         String name = algorithm.getSimpleName();
         RadioButton button = new RadioButton(name);
@@ -330,7 +402,7 @@ public final class AppUI extends UITemplate {
             }
             else{
                 if (!configInfoHashMap.containsKey(name))
-                    configInfoHashMap.put(name, new RunConfiguration.ClusteringConfig());
+                    configInfoHashMap.put(name, new RunConfiguration.ClusteringConfig(Clusterer.Restartable.class.isAssignableFrom(algorithm)));
                 runConfiguration.openConfig(name + manager.getPropertyValue(RUN_CONFIGURATION.name()), configInfoHashMap.get(name));
             }
         });
@@ -347,7 +419,9 @@ public final class AppUI extends UITemplate {
     }
 
     public void hideRunButton(){ runPane.getChildren().remove(runButton); }
-    private void showRunButton(){ if(!runPane.getChildren().contains(runButton)) runPane.getChildren().add(runButton); }
+    private void showRunButton(){ if(!runPane.getChildren().contains(runButton)) runPane.getChildren().add(0, runButton); }
+    private void hideStopButton(){ runPane.getChildren().remove(stopButton); }
+    private void showStopButton(){ if(!runPane.getChildren().contains(stopButton)) runPane.getChildren().add(stopButton); }
     public void enableScreenshotButton(boolean b){
         scrnshotButton.setDisable(!b);
     }
@@ -365,6 +439,16 @@ public final class AppUI extends UITemplate {
     public void showToggleButton(){ toggleButton.setVisible(true); }
 
     public void finishAlgorithm(){
+        Algorithm algorithm = runStarted == null ? null : runStarted.getAlgorithm();
+        if(algorithm instanceof Clusterer && ((Clusterer)algorithm).getStopReason() != null){
+            Clusterer clusterer = (Clusterer)algorithm;
+            runLabel.setText(manager.getPropertyValue(RUN_STOPPED.name())+clusterer.getIterations()+manager.getPropertyValue(RUN_ITERATIONS.name())
+                    +manager.getPropertyValue("STOP_"+clusterer.getStopReason().name()));
+        }
+        else if(runStarted != null && runStarted.isCancelled())
+            runLabel.setText(manager.getPropertyValue(RUN_CANCELLED.name()));
+        runStarted = null;
+        this.hideStopButton();
         this.showRunButton();
         this.enableScreenshotButton(true);
         this.algorithmRunning = false;
@@ -397,7 +481,6 @@ public final class AppUI extends UITemplate {
 
         toggleButton.setOnAction(e -> {
             if(toggleButton.getText().equals(manager.getPropertyValue(DONE.name()))){
-                chart.getData().clear();
                 ((AppData)applicationTemplate.getDataComponent()).loadData(textArea.getText());
                 if(((AppData)applicationTemplate.getDataComponent()).isDataIsValid()) {
                     toggleButton.setText(manager.getPropertyValue(EDIT.name()));
@@ -2,6 +2,7 @@ package ui;
 
 import actions.AppActions;
 import dataprocessors.AppData;
+import execution.AppExecutor;
 import javafx.stage.Stage;
 import vilij.templates.ApplicationTemplate;
 
@@ -16,6 +17,11 @@ import static vilij.settings.InitializationParams.*;
  */
 public final class DataVisualizer extends ApplicationTemplate {
 
+    private final AppExecutor executor = new AppExecutor();
+
+    /** @return the threads that algorithms and their runners run on */
+    public AppExecutor getExecutor() { return executor; }
+
     @Override
     public void start(Stage primaryStage) {
         dialogsAudit(primaryStage);
@@ -40,4 +46,9 @@ public final class DataVisualizer extends ApplicationTemplate {
         uiComponent.initialize();
     }
 
+    @Override
+    public void stop() {
+        executor.shutdown();
+    }
+
 }
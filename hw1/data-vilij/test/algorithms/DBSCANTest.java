@@ -0,0 +1,96 @@
+package algorithms;
+
+import data.ColumnarDataSet;
+import data.KDTree;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DBSCANTest {
+
+    /** Two interleaved half moons, which no centroid-based clustering separates, and a few far away outliers. */
+    private static ColumnarDataSet moonsWithOutliers() {
+        ColumnarDataSet columns = new ColumnarDataSet();
+        Random random = new Random(11);
+        for (int i = 0; i < 3000; i++) {
+            double angle = Math.PI * random.nextDouble();
+            double x     = i % 2 == 0 ? 10 * Math.cos(angle) : 10 - 10 * Math.cos(angle);
+            double y     = i % 2 == 0 ? 10 * Math.sin(angle) : 5 - 10 * Math.sin(angle);
+            columns.add("@" + i, "x", x + 0.2 * random.nextGaussian(), y + 0.2 * random.nextGaussian());
+        }
+        columns.add("@far1", "x", 500, 500);
+        columns.add("@far2", "x", -500, 300);
+        return columns;
+    }
+    /**
+     * With epsilon and the size of a neighbourhood estimated from the data, each moon becomes a cluster of its own and
+     * the outliers are noise.
+     */
+    @Test
+    public void separatesMoonsAndNoise() {
+        ColumnarDataSet columns = moonsWithOutliers();
+        int points = DBSCAN.minPoints(columns.size());
+        double epsilon = DBSCAN.estimateEpsilon(columns, new KDTree(columns), points, new Random(1));
+        assertTrue(epsilon > 0 && epsilon < 5);
+        DBSCAN engine = new DBSCAN(columns, epsilon, points);
+        while (engine.grow())
+            assertTrue(engine.getClusterCount() <= 2);
+        assertEquals(2, engine.getClusterCount());
+        int first  = engine.getLabel(0);
+        int second = engine.getLabel(1);
+        assertNotEquals(first, second);
+        for (int i = 0; i < 3000; i++) {
+            if (engine.getLabel(i) != DBSCAN.NOISE)
+                assertEquals(i % 2 == 0 ? first : second, engine.getLabel(i));
+        }
+        assertEquals(DBSCAN.NOISE, engine.getLabel(columns.indexOf("@far1")));
+        engine.publish(columns, "null");
+        assertEquals("null", columns.getLabel(columns.indexOf("@far2")));
+        assertEquals(Integer.toString(first), columns.getLabel(0));
+    }
+    /**
+     * The grid finds the same neighbourhoods as comparing every pair, wherever the points fall in the cells: core
+     * points share the cluster of every core point within epsilon, and any other point is noise exactly when no core
+     * point lies within epsilon of it.
+     */
+    @Test
+    public void matchesAllPairs() {
+        Random random = new Random(3);
+        int size = 800;
+        double[] xs = new double[size];
+        double[] ys = new double[size];
+        for (int i = 0; i < size; i++) {
+            xs[i] = 20 * random.nextDouble() - 5;
+            ys[i] = 20 * random.nextDouble() + 1e6;
+        }
+        double epsilon = 0.7;
+        DBSCAN engine = new DBSCAN(xs, ys, size, epsilon, DBSCAN.MIN_POINTS);
+        while (engine.grow())
+            ;
+        boolean[] core = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            int neighbours = 0;
+            for (int j = 0; j < size; j++) {
+                if (Math.hypot(xs[i] - xs[j], ys[i] - ys[j]) <= epsilon)
+                    neighbours++;
+            }
+            core[i] = neighbours >= DBSCAN.MIN_POINTS;
+        }
+        for (int i = 0; i < size; i++) {
+            boolean nearCore = false;
+            boolean joinsCore = false;
+            for (int j = 0; j < size; j++) {
+                if (!core[j] || Math.hypot(xs[i] - xs[j], ys[i] - ys[j]) > epsilon)
+                    continue;
+                nearCore = true;
+                joinsCore |= engine.getLabel(j) == engine.getLabel(i);
+                if (core[i])
+                    assertEquals(engine.getLabel(i), engine.getLabel(j));
+            }
+            assertEquals(nearCore, engine.getLabel(i) != DBSCAN.NOISE);
+            assertEquals(nearCore, joinsCore);
+        }
+    }
+}
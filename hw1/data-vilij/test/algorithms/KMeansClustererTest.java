@@ -0,0 +1,55 @@
+package algorithms;
+
+import algorithmbase.Clusterer.StopReason;
+import data.ColumnarDataSet;
+import data.DataCollector;
+import data.DataSet;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class KMeansClustererTest {
+    /**
+     * A run stops when nothing moved whatever the tolerance, and otherwise only once the largest centroid shift, taken
+     * relative to the root mean square distance of the points, or the relative change of the inertia falls within the
+     * tolerance.
+     */
+    @Test
+    public void stopsWithinTolerance() {
+        assertEquals(StopReason.CONVERGED, KMeansClusterer.stopReason(false, 0, 100, 100, 4, 0));
+        assertNull(KMeansClusterer.stopReason(true, 1e-9, 100, 100, 4, 0));
+        // the points lie 5 from their centroids on average
+        assertEquals(StopReason.CENTROID_SHIFT, KMeansClusterer.stopReason(true, 0.004, 100, 50, 4, 1e-3));
+        assertNull(KMeansClusterer.stopReason(true, 0.006, 100, 50, 4, 1e-3));
+        assertEquals(StopReason.INERTIA_CHANGE, KMeansClusterer.stopReason(true, 1, 100, 100.05, 4, 1e-3));
+        assertNull(KMeansClusterer.stopReason(true, 1, 100, Double.NaN, 4, 1e-3));
+    }
+    /**
+     * Restarts run side by side and the best of them labels the dataset: four groups, two of them close together, each
+     * end up under a single label of their own.
+     */
+    @Test
+    public void keepsBestRestart() {
+        ColumnarDataSet columns = new ColumnarDataSet();
+        Random random = new Random(5);
+        double[][] centres = {{0, 0}, {6, 0}, {100, 0}, {0, 100}};
+        for (int i = 0; i < 4000; i++) {
+            double[] centre = centres[i % 4];
+            columns.add("@" + i, "x", centre[0] + random.nextDouble(), centre[1] + random.nextDouble());
+        }
+        KMeansClusterer clusterer = new KMeansClusterer(new DataCollector(true), new DataSet(columns), 100, 5, 4);
+        clusterer.setRestarts(8);
+        clusterer.run();
+        assertNotNull(clusterer.getStopReason());
+        assertTrue(clusterer.getIterations() <= 100);
+        for (int i = 4; i < columns.size(); i++)
+            assertEquals(columns.getLabel(i % 4), columns.getLabel(i));
+        for (int group = 1; group < 4; group++)
+            assertNotEquals(columns.getLabel(0), columns.getLabel(group));
+        assertNotEquals(columns.getLabel(1), columns.getLabel(2));
+        assertNotEquals(columns.getLabel(2), columns.getLabel(3));
+        assertNotEquals(columns.getLabel(1), columns.getLabel(3));
+    }
+}
@@ -0,0 +1,116 @@
+package algorithms;
+
+import data.ColumnarDataSet;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class KMeansEngineTest {
+    private ColumnarDataSet blobs(int perBlob) {
+        ColumnarDataSet columns = new ColumnarDataSet();
+        Random random = new Random(7);
+        for (int i = 0; i < perBlob; i++) {
+            columns.add("@l" + i, "x", random.nextDouble(), random.nextDouble());
+            columns.add("@r" + i, "x", 100 + random.nextDouble(), random.nextDouble());
+        }
+        return columns;
+    }
+    /**
+     * Two far apart groups of points, spread over many ranges of the parallel pass, end up in two clusters whose
+     * centroids are the means of the groups.
+     */
+    @Test
+    public void separatesBlobs() {
+        ColumnarDataSet columns = blobs(50000);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        KMeansEngine engine = new KMeansEngine(columns.getXs(), columns.getYs(), columns.size(), 2, pool);
+        engine.seed(new Random(1));
+        int iterations = 0;
+        while (engine.iterate() && iterations < 100)
+            iterations++;
+        pool.shutdown();
+        assertTrue(iterations < 100);
+        engine.publish(columns);
+        String left  = columns.getLabel(columns.indexOf("@l0"));
+        String right = columns.getLabel(columns.indexOf("@r0"));
+        assertNotEquals(left, right);
+        for (int i = 0; i < columns.size(); i++)
+            assertEquals(columns.getName(i).startsWith("@l") ? left : right, columns.getLabel(i));
+        int leftCluster = Integer.parseInt(left);
+        assertEquals(0.5, engine.getCentroidX(leftCluster), 0.01);
+        assertEquals(100.5, engine.getCentroidX(1 - leftCluster), 0.01);
+    }
+    @Test
+    public void lowersKToPointCount() {
+        ColumnarDataSet columns = new ColumnarDataSet();
+        columns.add("@a", "x", 1, 1);
+        KMeansEngine engine = new KMeansEngine(columns, 3);
+        engine.seed(new Random());
+        assertEquals(1, engine.getK());
+        engine.iterate();
+        engine.publish(columns);
+        assertEquals("0", columns.getLabel(0));
+    }
+    /**
+     * With hundreds of clusters, the bounded pass has to arrive at the same assignments as comparing every point with
+     * every centroid, from the same seeds.
+     */
+    @Test
+    public void boundedMatchesExhaustive() {
+        ColumnarDataSet columns = new ColumnarDataSet();
+        Random random = new Random(3);
+        for (int i = 0; i < 20000; i++)
+            columns.add("@" + i, "x", random.nextGaussian() * 50, random.nextGaussian() * 50);
+        KMeansEngine bounded = new KMeansEngine(columns, 300);
+        KMeansEngine exhaustive = new KMeansEngine(columns, 300);
+        exhaustive.setBounded(false);
+        bounded.seed(new Random(11));
+        exhaustive.seed(new Random(11));
+        for (int iteration = 0; iteration < 15; iteration++) {
+            bounded.iterate();
+            exhaustive.iterate();
+        }
+        for (int i = 0; i < columns.size(); i++)
+            assertEquals(exhaustive.getAssignment(i), bounded.getAssignment(i));
+        for (int c = 0; c < 300; c++)
+            assertEquals(exhaustive.getCentroidX(c), bounded.getCentroidX(c), 1e-9);
+    }
+    /**
+     * k-means++ places seeds far apart, so each of a few distant groups gets one.
+     */
+    @Test
+    public void seedsSpreadOverGroups() {
+        ColumnarDataSet columns = new ColumnarDataSet();
+        for (int group = 0; group < 4; group++) {
+            for (int i = 0; i < 1000; i++)
+                columns.add("@" + group + "_" + i, "x", group * 1000 + i % 10, i / 100.0);
+        }
+        KMeansEngine engine = new KMeansEngine(columns, 4);
+        engine.seed(new Random(5));
+        boolean[] seeded = new boolean[4];
+        for (int c = 0; c < 4; c++)
+            seeded[(int) (engine.getCentroidX(c) / 1000)] = true;
+        for (boolean group : seeded)
+            assertTrue(group);
+    }
+    /**
+     * The inertia of a pass is the sum of the squared distances to the centroids the points were assigned to.
+     */
+    @Test
+    public void measuresInertia() {
+        ColumnarDataSet columns = new ColumnarDataSet();
+        columns.add("@a", "x", 0, 0);
+        columns.add("@b", "x", 2, 0);
+        columns.add("@c", "x", 10, 0);
+        columns.add("@d", "x", 10, 4);
+        KMeansEngine engine = new KMeansEngine(columns, 2);
+        engine.seed(new Random(3));
+        while (engine.iterate())
+            assertTrue(engine.getMaxShift() > 0);
+        assertEquals(0, engine.getMaxShift(), 0);
+        assertEquals(1 + 1 + 4 + 4, engine.getInertia(), 1e-9);
+    }
+}
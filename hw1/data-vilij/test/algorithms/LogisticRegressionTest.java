@@ -0,0 +1,58 @@
+package algorithms;
+
+import data.ColumnarDataSet;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LogisticRegressionTest {
+
+    private static ColumnarDataSet aboveAndBelow(int size, long seed) {
+        ColumnarDataSet columns = new ColumnarDataSet();
+        Random random = new Random(seed);
+        for (int i = 0; i < size; i++) {
+            double x = 1000 + 100 * random.nextDouble();
+            double y = 2 * x + (i % 2 == 0 ? 20 : -20) + random.nextDouble();
+            columns.add("@" + i, i % 2 == 0 ? "above" : "below", x, y);
+        }
+        return columns;
+    }
+
+    /**
+     * Two labels on either side of <code>y = 2x</code>, far from the origin, end up on either side of the learned
+     * line, which has the same slope.
+     */
+    @Test
+    public void separatesLabelsByLine() {
+        ColumnarDataSet columns = aboveAndBelow(2000, 1);
+        LogisticRegression model = new LogisticRegression(columns, new Random(2));
+        for (int step = 0; step < 500; step++)
+            model.step();
+        assertArrayEquals(new String[]{"above", "below"}, model.getLabels());
+        double[] line = model.line();
+        assertEquals(2, -line[0] / line[1], 0.2);
+        for (int i = 0; i < columns.size(); i++) {
+            double side = line[0] * columns.getX(i) + line[1] * columns.getY(i) - line[2];
+            assertEquals(columns.getLabel(i), side < 0 ? "above" : "below");
+            assertEquals(columns.getLabel(i), model.probability(columns.getX(i), columns.getY(i)) < 0.5 ? "above" : "below");
+        }
+    }
+
+    /**
+     * Unlabelled instances are left out of training, and a dataset with a single label has nothing to separate.
+     */
+    @Test
+    public void ignoresUnlabelledInstances() {
+        ColumnarDataSet columns = new ColumnarDataSet();
+        columns.add("@a", LogisticRegression.UNLABELED, 0, 0);
+        columns.add("@b", "one", 1, 1);
+        LogisticRegression model = new LogisticRegression(columns, new Random(3));
+        assertFalse(model.canTrain());
+        model.step();
+        assertEquals(0, model.getSteps());
+        columns.add("@c", "two", 2, 2);
+        assertTrue(new LogisticRegression(columns, new Random(3)).canTrain());
+    }
+}
@@ -0,0 +1,53 @@
+package algorithms;
+
+import data.ColumnarDataSet;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MiniBatchKMeansTest {
+    /**
+     * Batches far smaller than the data still pull the centroids onto two distant groups, and the chunked final pass
+     * labels every point by its group.
+     */
+    @Test
+    public void findsGroupsFromBatches() {
+        ColumnarDataSet columns = new ColumnarDataSet();
+        Random random = new Random(2);
+        for (int i = 0; i < 200000; i++)
+            columns.add("@" + i, "x", (i % 2) * 100 + random.nextDouble(), random.nextDouble());
+        MiniBatchKMeans engine = new MiniBatchKMeans(columns, 2, new Random(9));
+        engine.seed();
+        for (int step = 0; step < 50; step++)
+            engine.step();
+        int left = engine.getCentroidX(0) < 50 ? 0 : 1;
+        assertEquals(0.5, engine.getCentroidX(left), 0.05);
+        assertEquals(100.5, engine.getCentroidX(1 - left), 0.05);
+        engine.publish(columns);
+        for (int i = 0; i < columns.size(); i++)
+            assertEquals(Integer.toString(i % 2 == 0 ? left : 1 - left), columns.getLabel(i));
+    }
+    /**
+     * Coordinates can come from any buffer, such as a direct one standing in for a mapped file.
+     */
+    @Test
+    public void readsDirectBuffers() {
+        DoubleBuffer xs = ByteBuffer.allocateDirect(8 * 3000).asDoubleBuffer();
+        DoubleBuffer ys = ByteBuffer.allocateDirect(8 * 3000).asDoubleBuffer();
+        for (int i = 0; i < 3000; i++) {
+            xs.put(i, i < 1500 ? -10 : 10);
+            ys.put(i, 0);
+        }
+        MiniBatchKMeans engine = new MiniBatchKMeans(xs, ys, 2, new Random(4));
+        engine.seed();
+        engine.step();
+        int[] assignments = new int[3000];
+        engine.assign(0, 3000, assignments);
+        assertNotEquals(assignments[0], assignments[2999]);
+        assertEquals(assignments[0], assignments[1499]);
+    }
+}
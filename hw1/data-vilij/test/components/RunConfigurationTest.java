@@ -80,15 +80,15 @@ public class RunConfigurationTest {
         assertTrue(config.isContinuous());
     }
     /**
-     *  As mentioned in the SRS, the clustering algorithms will only be able to handle between 2 and 4 (inclusive) labels.
-     *  Therefore, if the number is outside the bounds, it will be set equal to the closest number within the bound.
+     *  Clustering needs at least 2 labels, so a lower number is raised to 2. There is no upper bound; the clusterers
+     *  lower the number of labels to the number of instances if there are fewer.
      */
     @Test
     public void testlLabelNumber() {
         RunConfiguration.ClusteringConfig config = new RunConfiguration.ClusteringConfig();
         config.setLabelNumber(Integer.MAX_VALUE);
         confirmClusteringSettings(config);
-        assertEquals(4, config.getLabelNumber());
+        assertEquals(Integer.MAX_VALUE, config.getLabelNumber());
     }
     @Test
     public void testInvalidLabelNumber(){
@@ -97,4 +97,42 @@ public class RunConfigurationTest {
         confirmClusteringSettings(config);
         assertEquals(2, config.getLabelNumber());
     }
-}
\ No newline at end of file
+    /**
+     *  A continuous run is shown at 1 to 60 frames per second; a rate outside that range is moved to the nearest end of
+     *  it, and anything that is not a number falls back to the default of one frame per second.
+     */
+    @Test
+    public void testFrameRate(){
+        RunConfiguration.ConfigInfo config = new RunConfiguration.ConfigInfo();
+        assertEquals(1, config.getFrameRate());
+        assertFalse(config.isMaxSpeed());
+        assertEquals(1, config.confirmFrameRate("0"));
+        assertEquals(30, config.confirmFrameRate("30"));
+        assertEquals(60, config.confirmFrameRate("1000"));
+        assertEquals(1, config.confirmFrameRate("fast"));
+    }
+    /**
+     *  The tolerance is a relative change, so it lies between 0, which stops a run only when nothing moves, and 1. Anything
+     *  that is not a number falls back to the default.
+     */
+    @Test
+    public void testTolerance(){
+        RunConfiguration.ClusteringConfig config = new RunConfiguration.ClusteringConfig();
+        assertEquals(RunConfiguration.ClusteringConfig.DEFAULT_TOLERANCE, config.getTolerance(), 0);
+        assertEquals(0, config.confirmTolerance("-1"), 0);
+        assertEquals(0.01, config.confirmTolerance("0.01"), 0);
+        assertEquals(1, config.confirmTolerance("5"), 0);
+        assertEquals(RunConfiguration.ClusteringConfig.DEFAULT_TOLERANCE, config.confirmTolerance("loose"), 0);
+    }
+    @Test
+    public void testRestarts(){
+        RunConfiguration.ClusteringConfig config = new RunConfiguration.ClusteringConfig();
+        assertEquals(1, config.getRestarts());
+        assertEquals(1, config.confirmRestarts("0"));
+        assertEquals(8, config.confirmRestarts("8"));
+        assertEquals(RunConfiguration.ClusteringConfig.MAX_RESTARTS, config.confirmRestarts("1000"));
+        assertEquals(1, config.confirmRestarts("many"));
+        assertFalse(config.isRestartable());
+        assertTrue(new RunConfiguration.ClusteringConfig(true).isRestartable());
+    }
+}
@@ -0,0 +1,94 @@
+package data;
+
+import javafx.geometry.Point2D;
+import org.junit.Test;
+
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+public class ColumnarDataSetTest {
+    @Test
+    public void addAndLookUpInstances() {
+        ColumnarDataSet columns = new ColumnarDataSet(1);
+        for (int i = 0; i < 100; i++)
+            columns.add("@" + i, i % 2 == 0 ? "even" : "odd", i, -i);
+        assertEquals(100, columns.size());
+        assertEquals(57, columns.indexOf("@57"));
+        assertEquals(-1, columns.indexOf("@100"));
+        assertEquals("odd", columns.getLabel(57));
+        assertEquals(2, columns.getLabelDictionary().size());
+        assertEquals(-57.0, columns.getYs()[57], 0);
+    }
+    /**
+     * The adapter maps have to compare equal to the hash maps the rest of the application used to build, and writing
+     * through them has to reach the columns.
+     */
+    @Test
+    public void viewsBehaveLikeMaps() throws DataSet.InvalidDataNameException {
+        DataSet dataSet = new DataSet();
+        dataSet.addInstance("@a\tx\t0,0");
+        dataSet.getLocations().put("@a", new Point2D(1, 2));
+        dataSet.updateLabel("@a", "y");
+        assertEquals(new HashMap<String, String>(){{put("@a","y");}}, dataSet.getLabels());
+        assertEquals(new HashMap<String, Point2D>(){{put("@a",new Point2D(1,2));}}, dataSet.getLocations());
+        assertEquals(1, dataSet.getColumns().size());
+    }
+    @Test
+    public void copyIsIndependent() {
+        ColumnarDataSet columns = new ColumnarDataSet();
+        columns.add("@a", "x", 1, 1);
+        ColumnarDataSet copy = columns.copy();
+        copy.setLabel(0, "z");
+        assertEquals("x", columns.getLabel(0));
+        assertEquals("z", copy.getLabel(0));
+        assertEquals(0, copy.indexOf("@a"));
+    }
+    /**
+     * Removing instances in any order keeps every other name reachable through the name table and the label counts in
+     * step with the instances.
+     */
+    @Test
+    public void removeKeepsNamesAndLabelCounts() {
+        ColumnarDataSet columns = new ColumnarDataSet(1);
+        for (int i = 0; i < 1000; i++)
+            columns.add("@" + i, i % 3 == 0 ? "three" : "other", i, i);
+        for (int i = 0; i < 1000; i += 2)
+            columns.remove(columns.indexOf("@" + i));
+        assertEquals(500, columns.size());
+        for (int i = 0; i < 1000; i++) {
+            int index = columns.indexOf("@" + i);
+            assertEquals(i % 2 == 0, index < 0);
+            if (index >= 0)
+                assertEquals(i, columns.getX(index), 0);
+        }
+        assertEquals(167, columns.getLabelSize(columns.labelCodeOf("three")));
+        columns.setLabel(columns.indexOf("@3"), "other");
+        assertEquals(166, columns.getLabelSize(columns.labelCodeOf("three")));
+    }
+    /**
+     * Removing a name through either view, its key set or an iterator removes the whole instance, so both views keep
+     * the same names; clearing one clears both, and a name cannot be added through a view.
+     */
+    @Test
+    public void viewsRemoveWholeInstances() {
+        ColumnarDataSet columns = new ColumnarDataSet();
+        for (int i = 0; i < 10; i++)
+            columns.add("@" + i, "x", i, i);
+        DataSet dataSet = new DataSet(columns);
+        assertEquals("x", dataSet.getLabels().remove("@0"));
+        assertNull(dataSet.getLabels().remove("@0"));
+        assertTrue(dataSet.getLocations().keySet().remove("@1"));
+        dataSet.getLabels().entrySet().removeIf(entry -> entry.getKey().compareTo("@5") >= 0);
+        assertEquals(new HashMap<String, Point2D>(){{put("@2", new Point2D(2, 2)); put("@3", new Point2D(3, 3)); put("@4", new Point2D(4, 4));}}, dataSet.getLocations());
+        assertEquals(dataSet.getLocations().keySet(), dataSet.getLabels().keySet());
+        assertEquals(3, columns.getLabelSize(columns.labelCodeOf("x")));
+        try {
+            dataSet.getLabels().put("@new", "x");
+            fail();
+        } catch (UnsupportedOperationException expected) { }
+        dataSet.getLabels().clear();
+        assertTrue(dataSet.getLocations().isEmpty());
+        assertEquals(0, columns.size());
+    }
+}
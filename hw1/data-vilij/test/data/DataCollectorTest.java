@@ -0,0 +1,57 @@
+package data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DataCollectorTest {
+    /**
+     * A collector keeping only the latest update lets the algorithm put any number of deltas without them being taken,
+     * and merges them, so the view still ends up with every label the algorithm gave.
+     */
+    @Test
+    public void latestOnlyMergesDeltas() throws InterruptedException {
+        ColumnarDataSet columns = columns(100);
+        ColumnarDataSet view = columns.copy();
+        DataCollector collector = new DataCollector(true);
+        LabelDelta.Tracker tracker = new LabelDelta.Tracker(columns);
+        for (int i = 0; i < 100; i++) {
+            columns.setLabel(i, "c" + i % 3);
+            columns.setLabel(99 - i, "d" + i % 5);
+            collector.put(tracker.changes());
+        }
+        collector.put(null);
+        collector.take().applyTo(view);
+        assertNull(collector.take());
+        for (int i = 0; i < 100; i++)
+            assertEquals(columns.getLabel(i), view.getLabel(i));
+    }
+    /**
+     * By default every delta is handed over in order, with the end of the run after them.
+     */
+    @Test
+    public void handsOverEveryDelta() throws InterruptedException {
+        ColumnarDataSet columns = columns(4);
+        DataCollector collector = new DataCollector();
+        LabelDelta.Tracker tracker = new LabelDelta.Tracker(columns);
+        Thread algorithm = new Thread(() -> {
+            columns.setLabel(1, "b");
+            collector.put(tracker.changes());
+            columns.setLabel(3, "c");
+            collector.put(tracker.changes());
+            collector.put(null);
+        });
+        algorithm.start();
+        assertEquals(1, collector.take().getIndex(0));
+        assertEquals(3, collector.take().getIndex(0));
+        assertNull(collector.take());
+        algorithm.join();
+    }
+
+    static ColumnarDataSet columns(int size) {
+        ColumnarDataSet columns = new ColumnarDataSet(size);
+        for (int i = 0; i < size; i++)
+            columns.add("@" + i, "a", i, i);
+        return columns;
+    }
+}
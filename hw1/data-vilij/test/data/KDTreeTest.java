@@ -0,0 +1,79 @@
+package data;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class KDTreeTest {
+    private static double distance(ColumnarDataSet columns, int index, double x, double y) {
+        double dx = columns.getX(index) - x;
+        double dy = columns.getY(index) - y;
+        return dx * dx + dy * dy;
+    }
+    private static void assertMatchesScan(KDTree tree, ColumnarDataSet columns, boolean[] live, Random random) {
+        for (int query = 0; query < 50; query++) {
+            double x = random.nextDouble() * 100;
+            double y = random.nextDouble() * 100;
+            int[] nearest = tree.nearest(x, y, 5);
+            assertEquals(5, nearest.length);
+            int closer = 0;
+            for (int i = 0; i < columns.size(); i++) {
+                if (live[i] && distance(columns, i, x, y) < distance(columns, nearest[4], x, y))
+                    closer++;
+            }
+            assertTrue(closer < 5);
+            for (int n = 1; n < nearest.length; n++)
+                assertTrue(distance(columns, nearest[n - 1], x, y) <= distance(columns, nearest[n], x, y));
+
+            int[] found = tree.range(x, y, x + 20, y + 10);
+            Arrays.sort(found);
+            int expected = 0;
+            for (int i = 0; i < columns.size(); i++) {
+                if (live[i] && columns.getX(i) >= x && columns.getX(i) <= x + 20 && columns.getY(i) >= y && columns.getY(i) <= y + 10)
+                    assertEquals(i, found[expected++]);
+            }
+            assertEquals(expected, found.length);
+        }
+    }
+    /**
+     * Queries have to agree with a linear scan, on the tree as built and after enough removals and insertions to both
+     * keep edits pending and force rebuilds.
+     */
+    @Test
+    public void queriesMatchLinearScan() {
+        Random random = new Random(8);
+        ColumnarDataSet columns = new ColumnarDataSet();
+        for (int i = 0; i < 5000; i++)
+            columns.add("@" + i, "x", random.nextDouble() * 100, random.nextInt(100));
+        boolean[] live = new boolean[10000];
+        Arrays.fill(live, 0, 5000, true);
+        KDTree tree = new KDTree(columns);
+        assertMatchesScan(tree, columns, live, random);
+        for (int i = 0; i < 3000; i++) {
+            int removed = random.nextInt(5000);
+            if (live[removed]) {
+                tree.remove(removed);
+                live[removed] = false;
+            }
+            int added = columns.add("@new" + i, "x", random.nextDouble() * 100, random.nextDouble() * 100);
+            tree.insert(added, columns.getX(added), columns.getY(added));
+            live[added] = true;
+            if (i == 30)
+                assertMatchesScan(tree, columns, live, random);
+        }
+        assertMatchesScan(tree, columns, live, random);
+        int count = 0;
+        for (boolean b : live)
+            if (b) count++;
+        assertEquals(count, tree.size());
+    }
+    @Test
+    public void emptyTree() {
+        KDTree tree = new KDTree(new ColumnarDataSet());
+        assertEquals(-1, tree.nearest(0, 0));
+        assertEquals(0, tree.range(0, 0, 1, 1).length);
+    }
+}
@@ -0,0 +1,61 @@
+package data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LabelDeltaTest {
+    /**
+     * A tracker only reports the instances whose labels changed since its last delta, in increasing order of index,
+     * and a view applying the deltas learns new labels under the same codes.
+     */
+    @Test
+    public void tracksChangedLabels() {
+        ColumnarDataSet columns = DataCollectorTest.columns(10);
+        ColumnarDataSet view = columns.copy();
+        LabelDelta.Tracker tracker = new LabelDelta.Tracker(columns);
+        columns.setLabel(7, "b");
+        columns.setLabel(2, "c");
+        columns.setLabel(5, "a");
+        LabelDelta delta = tracker.changes();
+        assertEquals(2, delta.size());
+        assertEquals(2, delta.getIndex(0));
+        assertEquals(7, delta.getIndex(1));
+        assertEquals(columns.getLabelCode(2), delta.getCode(0));
+        delta.applyTo(view);
+        assertEquals(columns.getLabelDictionary(), view.getLabelDictionary());
+        assertEquals("c", view.getLabel(2));
+        assertEquals("b", view.getLabel(7));
+        assertEquals(0, tracker.changes().size());
+        columns.setLabel(7, "a");
+        columns.setLabel(3, "b");
+        delta = tracker.changes(new int[]{7, 3, 7, 4}, 3);
+        assertEquals(2, delta.size());
+        assertEquals(3, delta.getIndex(0));
+        assertEquals(7, delta.getIndex(1));
+    }
+    /**
+     * Merging two deltas has the effect of applying both in turn, the later one winning where both changed an instance.
+     */
+    @Test
+    public void mergesInOrder() {
+        ColumnarDataSet columns = DataCollectorTest.columns(10);
+        ColumnarDataSet view = columns.copy();
+        LabelDelta.Tracker tracker = new LabelDelta.Tracker(columns);
+        columns.setLabel(1, "b");
+        columns.setLabel(4, "b");
+        columns.setLabel(8, "b");
+        LabelDelta earlier = tracker.changes();
+        columns.setLabel(4, "c");
+        columns.setLabel(6, "c");
+        columns.setLabel(9, "c");
+        LabelDelta merged = LabelDelta.merge(earlier, tracker.changes());
+        assertEquals(5, merged.size());
+        for (int change = 1; change < merged.size(); change++)
+            assertTrue(merged.getIndex(change - 1) < merged.getIndex(change));
+        merged.applyTo(view);
+        for (int i = 0; i < columns.size(); i++)
+            assertEquals(columns.getLabel(i), view.getLabel(i));
+        assertEquals(3, earlier.size());
+    }
+}
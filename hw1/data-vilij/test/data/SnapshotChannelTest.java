@@ -0,0 +1,85 @@
+package data;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class SnapshotChannelTest {
+    /**
+     * A producer far faster than the consumer still hands over every snapshot, in order, through a small buffer.
+     */
+    @Test
+    public void handsOverEverySnapshotInOrder() throws InterruptedException {
+        SnapshotChannel<Integer>   channel = new SnapshotChannel<>(4, false);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 100000; i++)
+                    assertTrue(channel.put(i));
+            } catch (Throwable t) {
+                failure.set(t);
+            } finally {
+                channel.put(null);
+            }
+        });
+        producer.start();
+        int expected = 0;
+        for (Integer snapshot = channel.take(); snapshot != null; snapshot = channel.take())
+            assertEquals(expected++, (int) snapshot);
+        producer.join();
+        assertNull(failure.get());
+        assertEquals(100000, expected);
+    }
+    /**
+     * Only the newest snapshot is kept, and nothing can be put once the channel is closed.
+     */
+    @Test
+    public void latestOnlyCoalesces() throws InterruptedException {
+        SnapshotChannel<String> channel = new SnapshotChannel<>(true);
+        assertNull(channel.poll());
+        channel.put("a");
+        channel.put("b");
+        assertEquals("b", channel.poll());
+        assertNull(channel.poll());
+        channel.put("c");
+        channel.close();
+        assertFalse(channel.put("d"));
+        assertEquals("c", channel.take());
+        assertNull(channel.take());
+    }
+    /**
+     * A consumer waiting for a snapshot can be interrupted, and a producer waiting on a full buffer gives up when it is
+     * interrupted, keeping its interrupt status.
+     */
+    @Test
+    public void waitsCanBeInterrupted() throws InterruptedException {
+        SnapshotChannel<Integer> channel = new SnapshotChannel<>(1, false);
+        Thread.currentThread().interrupt();
+        try {
+            channel.take();
+            fail();
+        } catch (InterruptedException expected) {
+            assertFalse(Thread.currentThread().isInterrupted());
+        }
+        assertTrue(channel.put(1));
+        Thread.currentThread().interrupt();
+        assertFalse(channel.put(2));
+        assertTrue(Thread.interrupted());
+        assertEquals(1, (int) channel.poll());
+    }
+    /**
+     * Cancelling drops the snapshots still held, so the consumer sees the end of the run next.
+     */
+    @Test
+    public void cancelDropsHeldSnapshots() throws InterruptedException {
+        SnapshotChannel<Integer> channel = new SnapshotChannel<>(4, false);
+        assertTrue(channel.put(1));
+        assertTrue(channel.put(2));
+        channel.cancel();
+        assertTrue(channel.isCancelled());
+        assertFalse(channel.put(3));
+        assertNull(channel.take());
+    }
+}
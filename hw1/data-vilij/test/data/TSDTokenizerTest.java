@@ -0,0 +1,46 @@
+package data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TSDTokenizerTest {
+    private static final String[] NUMBERS = {
+            "0", "-0", "1", "1.5", "-2.25", ".5", "5.", "0.1", "0.0015", "123456789.123456", "1e5", "1.5E-3",
+            "-7e+2", " 3.0 ", "9007199254740993", "1.7976931348623157E308", "4.9E-324", "1e-30", "NaN",
+            "-Infinity", "1.5d", "2f", "0x1p3", "100000000000000000000000"
+    };
+    private static final String[] NOT_NUMBERS = {"", " ", "abc", ".", "-", "+-1", "1e", "e5", "1.2.3", "1x", "1a"};
+
+    /**
+     * Every number has to come out exactly as {@link Double#parseDouble(String)} gives it, whether or not it takes the
+     * fast path.
+     */
+    @Test
+    public void parsesLikeParseDouble() {
+        TSDTokenizer tokenizer = new TSDTokenizer();
+        for (String number : NUMBERS) {
+            assertTrue(number, tokenizer.parsePair(number + ",1", 0, number.length() + 2));
+            assertEquals(number, Double.doubleToLongBits(Double.parseDouble(number)), Double.doubleToLongBits(tokenizer.x()));
+        }
+    }
+    @Test
+    public void rejectsWhatParseDoubleRejects() {
+        TSDTokenizer tokenizer = new TSDTokenizer();
+        for (String number : NOT_NUMBERS)
+            assertFalse(number, tokenizer.parsePair("1," + number, 0, number.length() + 2));
+    }
+    @Test
+    public void splitsFields() {
+        TSDTokenizer tokenizer = new TSDTokenizer();
+        assertEquals(TSDTokenizer.OK, tokenizer.tokenize("@a\tlabel\t1,-2,3\t"));
+        assertEquals("@a", tokenizer.name());
+        assertEquals("label", tokenizer.label());
+        assertEquals(1, tokenizer.x(), 0);
+        assertEquals(-2, tokenizer.y(), 0);
+        assertEquals(TSDTokenizer.MALFORMED_LINE, tokenizer.tokenize("@a\tlabel"));
+        assertEquals(TSDTokenizer.MALFORMED_LINE, tokenizer.tokenize("@a\tlabel\t1,1\tx"));
+        assertEquals(TSDTokenizer.INVALID_NAME, tokenizer.tokenize("a\tlabel\t1,1"));
+        assertEquals(TSDTokenizer.INVALID_PAIR, tokenizer.tokenize("@a\tlabel\t1"));
+    }
+}
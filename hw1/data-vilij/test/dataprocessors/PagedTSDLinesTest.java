@@ -0,0 +1,47 @@
+package dataprocessors;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class PagedTSDLinesTest {
+    /**
+     * The lines indexed while a file is parsed, on one thread or many, read back exactly as they were written, without
+     * their terminators and in any order.
+     */
+    @Test
+    public void readsIndexedLines() throws Exception {
+        List<String> lines = new ArrayList<>();
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            lines.add("@" + i + "\tlabel\t" + i + "," + i);
+            data.append(lines.get(i)).append(i % 2 == 0 ? "\r\n" : "\n");
+        }
+        data.setLength(data.length() - 1);
+        Path path = Files.createTempFile("paged", ".tsd");
+        path.toFile().deleteOnExit();
+        Files.write(path, data.toString().getBytes(StandardCharsets.UTF_8));
+
+        LineIndex sequential = new LineIndex();
+        new TSDProcessor().processFile(path, sequential);
+        LineIndex parallel = new LineIndex();
+        ForkJoinPool pool = new ForkJoinPool(8);
+        new ParallelTSDParser(path, pool).parseInto(new TSDProcessor(), parallel);
+        pool.shutdown();
+
+        for (LineIndex index : new LineIndex[]{sequential, parallel}) {
+            PagedTSDLines paged = new PagedTSDLines(path, index);
+            assertEquals(lines.size(), paged.size());
+            for (int i = lines.size() - 1; i >= 0; i -= 7)
+                assertEquals(lines.get(i), paged.get(i));
+            assertEquals(lines.get(0), paged.get(0));
+        }
+    }
+}
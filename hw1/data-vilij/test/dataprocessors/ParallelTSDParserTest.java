@@ -0,0 +1,61 @@
+package dataprocessors;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ParallelTSDParserTest {
+    private Path writeData(int lines) throws IOException {
+        StringBuilder data = new StringBuilder();
+        for (int i = 1; i <= lines; i++) {
+            if (i % 97 == 0)
+                data.append("@").append(i - 90).append("\tdupe\t1,1\n");
+            else if (i % 101 == 0)
+                data.append("@").append(i).append("\tbad\t1;1\n");
+            else
+                data.append("@").append(i).append("\tlabel").append(i % 3).append("\t").append(i).append(",").append(-i).append("\n");
+        }
+        Path path = Files.createTempFile("parallel", ".tsd");
+        Files.write(path, data.toString().getBytes(StandardCharsets.UTF_8));
+        path.toFile().deleteOnExit();
+        return path;
+    }
+    /**
+     * Splitting the file into many small ranges has to give the same instances, and the same errors at the same line
+     * numbers, as reading it line by line.
+     */
+    @Test
+    public void matchesSequentialParse() throws Exception {
+        Path path = writeData(5000);
+        TSDProcessor sequential = new TSDProcessor();
+        int sequentialLines = new TSDReader(path).read(sequential::processLine);
+        TSDProcessor parallel = new TSDProcessor();
+        ForkJoinPool pool = new ForkJoinPool(8);
+        int parallelLines = new ParallelTSDParser(path, pool).parseInto(parallel, null);
+        pool.shutdown();
+        assertEquals(sequentialLines, parallelLines);
+        assertEquals(sequential.getDataLabels(), parallel.getDataLabels());
+        assertEquals(sequential.getColumns().locationView(), parallel.getColumns().locationView());
+        assertEquals(sequential.getErrors().size(), parallel.getErrors().size());
+        for (int i = 0; i < sequential.getErrors().size(); i++) {
+            assertEquals(sequential.getErrors().get(i).getLineNumber(), parallel.getErrors().get(i).getLineNumber());
+            assertEquals(sequential.getErrors().get(i).getMessage(), parallel.getErrors().get(i).getMessage());
+        }
+    }
+    @Test
+    public void rangesStartOnLineBoundaries() throws Exception {
+        Path path = writeData(300);
+        byte[] bytes = Files.readAllBytes(path);
+        long[] bounds = new TSDReader(path).lineAlignedRanges(7);
+        assertEquals(0, bounds[0]);
+        assertEquals(bytes.length, bounds[bounds.length - 1]);
+        for (int i = 1; i < bounds.length - 1; i++)
+            assertEquals('\n', bytes[(int) bounds[i] - 1]);
+    }
+}
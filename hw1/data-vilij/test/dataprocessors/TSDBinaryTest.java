@@ -0,0 +1,68 @@
+package dataprocessors;
+
+import data.ColumnarDataSet;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class TSDBinaryTest {
+    private Path tempFile(String suffix) throws IOException {
+        Path path = Files.createTempFile("binary", suffix);
+        path.toFile().deleteOnExit();
+        return path;
+    }
+    @Test
+    public void roundTrip() throws IOException {
+        ColumnarDataSet columns = new ColumnarDataSet();
+        columns.add("@a", "x", 1.5, -2);
+        columns.add("@b", null, Double.MAX_VALUE, Double.MIN_VALUE);
+        columns.add("@c", "y", 0, 0);
+        Path path = tempFile(".tsdb");
+        TSDWriter.write(columns, path);
+        ColumnarDataSet read = TSDBinary.read(path);
+        assertEquals(3, read.size());
+        assertEquals(Arrays.asList("x", "y"), read.getLabelDictionary());
+        assertEquals(1, read.indexOf("@b"));
+        assertNull(read.getLabel(1));
+        assertEquals(Double.MAX_VALUE, read.getX(1), 0);
+        assertEquals(Double.MIN_VALUE, read.getY(1), 0);
+        assertEquals("y", read.getLabel(2));
+    }
+    @Test(expected = IOException.class)
+    public void rejectsTextFile() throws IOException {
+        Path path = tempFile(".tsdb");
+        Files.write(path, "@a\ta\t1,1\n".getBytes(StandardCharsets.UTF_8));
+        TSDBinary.read(path);
+    }
+    /**
+     * A snapshot holding a name without the <code>@</code> prefix is refused, as its <code>.tsd</code> line would be.
+     */
+    @Test(expected = IOException.class)
+    public void rejectsNameWithoutPrefix() throws IOException {
+        ColumnarDataSet columns = new ColumnarDataSet();
+        columns.add("@a", "x", 1, 1);
+        columns.add("b", "x", 2, 2);
+        Path path = tempFile(".tsdb");
+        TSDWriter.write(columns, path);
+        TSDBinary.read(path);
+    }
+    /**
+     * Converting text to a snapshot and back has to reproduce the original lines.
+     */
+    @Test
+    public void convertsBothWays() throws Exception {
+        Path text = tempFile(".tsd");
+        Files.write(text, "@a\tlabel1\t1.5,2.2\n@b\tlabel2\t10,-9.4\n".getBytes(StandardCharsets.UTF_8));
+        Path binary = tempFile(".tsdb");
+        Path back = tempFile(".tsd");
+        assertEquals(2, TSDConverter.convert(text, binary));
+        assertEquals(2, TSDConverter.convert(binary, back));
+        assertEquals(Files.readAllLines(text), Files.readAllLines(back));
+    }
+}
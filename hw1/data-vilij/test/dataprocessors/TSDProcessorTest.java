@@ -3,7 +3,9 @@ package dataprocessors;
 import javafx.geometry.Point2D;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 
 import static org.junit.Assert.*;
 
@@ -11,11 +13,10 @@ public class TSDProcessorTest {
     @Test
     public void createInstanceNormal() {
         TSDProcessor processor = new TSDProcessor();
-        try {
-            processor.processString("@a\ta\t1,1");
-        } catch (Exception ignored) { }
+        processor.processLines("@a\ta\t1,1");
+        assertTrue(processor.getErrors().isEmpty());
         assertEquals(new HashMap<String, String>(){{put("@a","a");}}, processor.getDataLabels());
-        assertEquals(new HashMap<String, Point2D>(){{put("@a",new Point2D(1,1));}}, processor.getDataPoints());
+        assertEquals(new HashMap<String, Point2D>(){{put("@a",new Point2D(1,1));}}, processor.getColumns().locationView());
     }
     /**
      * In this case, these are boundary values because they are using points that are slightly lower than the maximum containable values
@@ -24,25 +25,81 @@ public class TSDProcessorTest {
     @Test
     public void createInstanceBoundaryHigh() {
         TSDProcessor processor = new TSDProcessor();
-        try {
-            processor.processString("@a\ta\t" + Double.MAX_VALUE + "," + Double.MAX_VALUE);
-        } catch (Exception ignored) { }
+        processor.processLines("@a\ta\t" + Double.MAX_VALUE + "," + Double.MAX_VALUE);
+        assertTrue(processor.getErrors().isEmpty());
         assertEquals(new HashMap<String, String>(){{put("@a","a");}}, processor.getDataLabels());
-        assertEquals(new HashMap<String, Point2D>(){{put("@a",new Point2D(Double.MAX_VALUE,Double.MAX_VALUE));}}, processor.getDataPoints());
+        assertEquals(new HashMap<String, Point2D>(){{put("@a",new Point2D(Double.MAX_VALUE,Double.MAX_VALUE));}}, processor.getColumns().locationView());
     }
     @Test
     public void createInstanceBoundaryLow(){
         TSDProcessor processor = new TSDProcessor();
-        try {
-            processor.processString("@a\ta\t" + Double.MIN_VALUE + "," + Double.MIN_VALUE);
-        } catch (Exception ignored) { }
+        processor.processLines("@a\ta\t" + Double.MIN_VALUE + "," + Double.MIN_VALUE);
+        assertTrue(processor.getErrors().isEmpty());
         assertEquals(new HashMap<String, String>(){{put("@a","a");}}, processor.getDataLabels());
-        assertEquals(new HashMap<String, Point2D>(){{put("@a",new Point2D(Double.MIN_VALUE,Double.MIN_VALUE));}}, processor.getDataPoints());
+        assertEquals(new HashMap<String, Point2D>(){{put("@a",new Point2D(Double.MIN_VALUE,Double.MIN_VALUE));}}, processor.getColumns().locationView());
     }
-    @Test(expected = Exception.class)
-    public void createInstanceWithError() throws Exception {
+    @Test
+    public void createInstanceWithError() {
         TSDProcessor processor = new TSDProcessor();
-        processor.processString("");
-
+        processor.processLines("");
+        assertEquals(1, processor.getErrors().size());
+    }
+    /**
+     * Every invalid line is reported with its own line number in a single pass, and valid lines around it are still
+     * processed.
+     */
+    @Test
+    public void processLinesReportsEveryErrorLine() {
+        TSDProcessor processor = new TSDProcessor();
+        processor.processLines("@a\ta\t1,1\nb\ta\t1,1\n@c\tb\t2,x\n@a\tb\t3,3\n@d\tb\t4,4");
+        assertEquals(3, processor.getErrors().size());
+        assertEquals(2, processor.getErrors().get(0).getLineNumber());
+        assertEquals(3, processor.getErrors().get(1).getLineNumber());
+        assertEquals(4, processor.getErrors().get(2).getLineNumber());
+        assertEquals(2, processor.getDataLabels().size());
+        assertEquals(new LinkedHashSet<>(Arrays.asList("a", "b")), processor.getLabelNames());
+    }
+    @Test
+    public void processLineRejectsDuplicateName() {
+        TSDProcessor processor = new TSDProcessor();
+        processor.processLine("@a\ta\t1,1", 1);
+        processor.processLine("@a\tb\t2,2", 2);
+        assertEquals(1, processor.getErrors().size());
+        assertEquals("a", processor.getDataLabels().get("@a"));
+    }
+    /**
+     * An edit only touches the lines between the unchanged ones, and is rejected as a whole when one of them is
+     * invalid.
+     */
+    @Test
+    public void processEditReplacesEditedLines() {
+        TSDProcessor processor = new TSDProcessor();
+        String[] lines = {"@a\ta\t1,1", "@b\ta\t2,2", "@c\tb\t3,3"};
+        processor.processLines(lines);
+        String[] edited = {"@a\ta\t1,1", "@d\tc\t4,4", "@b\tc\t5,5", "@c\tb\t3,3"};
+        processor.processEdit(lines, edited);
+        assertTrue(processor.getErrors().isEmpty());
+        assertEquals(new LinkedHashSet<>(Arrays.asList("a", "b", "c")), processor.getLabelNames());
+        assertEquals(new Point2D(5, 5), processor.getColumns().locationView().get("@b"));
+        assertEquals(4, processor.getDataLabels().size());
+        String[] invalid = {"@a\ta\t1,1", "@c\tc\t4,4", "@b\tc\t5,5", "@c\tb\t3,3"};
+        processor.processEdit(edited, invalid);
+        assertEquals(1, processor.getErrors().size());
+        assertEquals(2, processor.getErrors().get(0).getLineNumber());
+        assertEquals("c", processor.getDataLabels().get("@d"));
+    }
+    /**
+     * The spatial index follows edits, including the instance that removal moves to a new index.
+     */
+    @Test
+    public void processEditUpdatesSpatialIndex() {
+        TSDProcessor processor = new TSDProcessor();
+        String[] lines = {"@a\ta\t1,1", "@b\ta\t2,2", "@c\tb\t30,30"};
+        processor.processLines(lines);
+        processor.getSpatialIndex();
+        processor.processEdit(lines, new String[]{"@b\ta\t2,2", "@c\tb\t30,30", "@d\tb\t-5,-5"});
+        assertEquals("@c", processor.getColumns().getName(processor.getSpatialIndex().nearest(29, 29)));
+        assertEquals("@d", processor.getColumns().getName(processor.getSpatialIndex().nearest(-4, -4)));
+        assertEquals(3, processor.getSpatialIndex().size());
     }
-}
\ No newline at end of file
+}
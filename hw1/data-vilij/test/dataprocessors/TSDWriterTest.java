@@ -0,0 +1,105 @@
+package dataprocessors;
+
+import data.ColumnarDataSet;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class TSDWriterTest {
+    /**
+     * Saving over an existing file replaces it with the encoded instances, and leaves no temporary file behind.
+     */
+    @Test
+    public void replacesFileWithEncodedInstances() throws IOException {
+        Path directory = Files.createTempDirectory("writer");
+        Path path = directory.resolve("saved.tsd");
+        Files.write(path, "old contents".getBytes(StandardCharsets.UTF_8));
+        ColumnarDataSet columns = new ColumnarDataSet();
+        columns.add("@a", "x", 1, 1);
+        columns.add("@b", "y", 2.5, -3e-7);
+        TSDWriter.write(columns, path);
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        assertEquals(Arrays.asList("@a\tx\t1,1", "@b\ty\t2.5,-3.0E-7"), lines);
+        String[] left = directory.toFile().list();
+        assertArrayEquals(new String[]{"saved.tsd"}, left);
+        for (File file : directory.toFile().listFiles())
+            file.delete();
+        directory.toFile().delete();
+    }
+    /**
+     * A compressed file is written as gzip and read back through the streaming decompressor.
+     */
+    @Test
+    public void compressedRoundTrip() throws Exception {
+        ColumnarDataSet columns = new ColumnarDataSet();
+        for (int i = 0; i < 20000; i++)
+            columns.add("@" + i, "label" + i % 3, i, -i / 4.0);
+        Path path = Files.createTempFile("writer", ".tsd.gz");
+        path.toFile().deleteOnExit();
+        TSDWriter.write(columns, path);
+        byte[] bytes = Files.readAllBytes(path);
+        assertEquals(0x1f, bytes[0] & 0xff);
+        assertEquals(0x8b, bytes[1] & 0xff);
+        TSDProcessor processor = new TSDProcessor();
+        assertEquals(20000, processor.processFile(path));
+        assertTrue(processor.getErrors().isEmpty());
+        ColumnarDataSet read = processor.getColumns();
+        assertEquals(20000, read.size());
+        assertEquals(-4999.75, read.getY(read.indexOf("@19999")), 0);
+    }
+    /**
+     * Saving after an edit in the middle of the text writes the lines in the order they were typed, although the edit
+     * moved the instances of the processor out of that order.
+     */
+    @Test
+    public void savesEditedTextInLineOrder() throws IOException {
+        String[] lines  = {"@a\tx\t1,1", "@b\tx\t2,2", "@c\ty\t3,3", "@d\ty\t4,4"};
+        String[] edited = {"@a\tx\t1,1", "@b\ty\t5,5", "@c\ty\t3,3", "@d\ty\t4,4"};
+        TSDProcessor processor = new TSDProcessor();
+        processor.processLines(lines);
+        assertSame(processor.getColumns(), processor.columnsInLineOrder(lines));
+        processor.processEdit(lines, edited);
+        assertTrue(processor.getErrors().isEmpty());
+        Path path = Files.createTempFile("writer", ".tsd");
+        path.toFile().deleteOnExit();
+        TSDWriter.write(processor.columnsInLineOrder(edited), path);
+        assertEquals(Arrays.asList(edited), Files.readAllLines(path, StandardCharsets.UTF_8));
+    }
+    /**
+     * Saving over a file keeps its permissions, and a new file gets the permissions of any other new file instead of
+     * those of a private temporary file.
+     */
+    @Test
+    public void keepsPermissions() throws IOException {
+        Path directory = Files.createTempDirectory("writer");
+        assumeTrue(Files.getFileStore(directory).supportsFileAttributeView(PosixFileAttributeView.class));
+        ColumnarDataSet columns = new ColumnarDataSet();
+        columns.add("@a", "x", 1, 1);
+        Path existing = directory.resolve("existing.tsd");
+        Files.createFile(existing);
+        Set<PosixFilePermission> shared = PosixFilePermissions.fromString("rw-r--r--");
+        Files.setPosixFilePermissions(existing, shared);
+        TSDWriter.write(columns, existing);
+        assertEquals(shared, Files.getPosixFilePermissions(existing));
+        Path created = directory.resolve("created.tsd");
+        TSDWriter.write(columns, created);
+        Path plain = Files.createFile(directory.resolve("plain.tsd"));
+        assertEquals(Files.getPosixFilePermissions(plain), Files.getPosixFilePermissions(created));
+        for (File file : directory.toFile().listFiles())
+            file.delete();
+        directory.toFile().delete();
+    }
+}
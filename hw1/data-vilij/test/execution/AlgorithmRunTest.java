@@ -0,0 +1,69 @@
+package execution;
+
+import algorithms.RandomClusterer;
+import algorithmbase.Clusterer.StopReason;
+import data.ColumnarDataSet;
+import data.DataCollector;
+import data.DataSet;
+import data.LabelDelta;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AlgorithmRunTest {
+    /**
+     * A cancelled run stops its algorithm long before its iterations run out, and its runner sees the end of the run.
+     */
+    @Test
+    public void cancelStopsAlgorithm() throws InterruptedException {
+        ColumnarDataSet columns = new ColumnarDataSet();
+        for (int i = 0; i < 100; i++)
+            columns.add("@" + i, "x", i, i);
+        DataCollector collector = new DataCollector();
+        RandomClusterer clusterer = new RandomClusterer(collector, new DataSet(columns), Integer.MAX_VALUE, 1, 3);
+        CountDownLatch firstFrame = new CountDownLatch(1);
+        CountDownLatch ended = new CountDownLatch(1);
+        AppExecutor executor = new AppExecutor(1);
+        AlgorithmRun run = new AlgorithmRun(clusterer, collector, new StepController(true)).start(executor, () -> {
+            try {
+                for (LabelDelta delta = collector.take(); delta != null; delta = collector.take())
+                    firstFrame.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ended.countDown();
+        });
+        assertTrue(firstFrame.await(5, TimeUnit.SECONDS));
+        run.cancel();
+        assertTrue(ended.await(5, TimeUnit.SECONDS));
+        assertTrue(run.isCancelled());
+        assertTrue(clusterer.isStopped());
+        assertTrue(executor.shutdown());
+        assertEquals(StopReason.CANCELLED, clusterer.getStopReason());
+        assertTrue(clusterer.getIterations() < Integer.MAX_VALUE);
+    }
+    /**
+     * An algorithm that throws still ends its run, so the runner is not left waiting for updates that never come.
+     */
+    @Test
+    public void failedAlgorithmEndsRun() throws InterruptedException {
+        DataCollector collector = new DataCollector();
+        RandomClusterer clusterer = new RandomClusterer(collector, null, 10, 1, 3);
+        CountDownLatch ended = new CountDownLatch(1);
+        AppExecutor executor = new AppExecutor(1);
+        new AlgorithmRun(clusterer, collector, new StepController(true)).start(executor, () -> {
+            try {
+                assertNull(collector.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ended.countDown();
+        });
+        assertTrue(ended.await(5, TimeUnit.SECONDS));
+        assertTrue(executor.shutdown());
+        assertTrue(clusterer.isStopped());
+    }
+}
@@ -0,0 +1,55 @@
+package execution;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class AppExecutorTest {
+    /**
+     * Algorithms and runners run on named daemon threads of their own pools, so neither keeps the JVM alive.
+     */
+    @Test
+    public void runsOnNamedDaemonThreads() throws InterruptedException {
+        AppExecutor executor = new AppExecutor(1);
+        AtomicReference<Thread> algorithm = new AtomicReference<>();
+        AtomicReference<Thread> runner = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(2);
+        executor.runAlgorithm(() -> { algorithm.set(Thread.currentThread()); done.countDown(); });
+        executor.runRunner(() -> { runner.set(Thread.currentThread()); done.countDown(); });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(algorithm.get().isDaemon());
+        assertTrue(runner.get().isDaemon());
+        assertTrue(algorithm.get().getName().startsWith("vilij-algorithm-"));
+        assertTrue(runner.get().getName().startsWith("vilij-runner-"));
+        assertTrue(executor.shutdown());
+    }
+    /**
+     * The compute pool is bounded: an algorithm beyond it waits for a thread, and shutting down interrupts the one
+     * still running and refuses new work.
+     */
+    @Test
+    public void boundsAlgorithmsAndInterruptsOnShutdown() throws InterruptedException {
+        AppExecutor executor = new AppExecutor(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        executor.runAlgorithm(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        executor.runAlgorithm(() -> { });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(1, executor.getActiveAlgorithms());
+        assertEquals(1, executor.getQueuedAlgorithms());
+        assertTrue(executor.shutdown());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertTrue(executor.isShutdown());
+    }
+}
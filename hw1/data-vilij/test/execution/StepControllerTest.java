@@ -0,0 +1,66 @@
+package execution;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class StepControllerTest {
+    /**
+     * A stepping run waits after every update until it is allowed more; stepping by several lets that many through.
+     */
+    @Test
+    public void stepsThroughUpdates() throws InterruptedException {
+        CountDownLatch paused = new CountDownLatch(1);
+        StepController controller = new StepController(false, paused::countDown);
+        AtomicInteger shown = new AtomicInteger();
+        Thread runner = new Thread(() -> {
+            try {
+                do {
+                    shown.incrementAndGet();
+                } while (shown.get() < 4 && controller.awaitStep());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        runner.start();
+        assertTrue(paused.await(5, TimeUnit.SECONDS));
+        assertEquals(1, shown.get());
+        controller.step(3);
+        runner.join(5000);
+        assertFalse(runner.isAlive());
+        assertEquals(4, shown.get());
+    }
+    /**
+     * Resuming, or running to the end, releases a waiting runner for good, and pausing makes it wait again.
+     */
+    @Test
+    public void resumesAndPauses() throws InterruptedException {
+        StepController controller = new StepController(false);
+        controller.resume();
+        assertTrue(controller.awaitStep());
+        assertTrue(controller.isRunning());
+        assertFalse(controller.isSkipping());
+        controller.runToEnd();
+        assertTrue(controller.isSkipping());
+        controller.pause();
+        assertFalse(controller.isRunning());
+        Thread runner = new Thread(() -> {
+            try {
+                assertFalse(controller.awaitStep());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        runner.start();
+        while (!controller.isPaused())
+            Thread.sleep(1);
+        controller.cancel();
+        runner.join(5000);
+        assertFalse(runner.isAlive());
+        assertTrue(controller.isCancelled());
+    }
+}